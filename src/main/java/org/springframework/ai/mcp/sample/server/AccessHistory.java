@@ -0,0 +1,176 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the wiki pages asked for, so that a later process can warm its caches
+ * with the pages used most. The counts of this process are added to
+ * {@code ones.warmup.history.file} when it shuts down; the file keeps the
+ * {@code ones.warmup.history.max-entries} most used pages, one
+ * {@code count<TAB>url} line each. Processes exiting at the same moment may
+ * overwrite each other's additions, which only makes the history less precise.
+ */
+@Component
+public class AccessHistory implements DisposableBean {
+
+    /**
+     * A page and how often it was asked for.
+     *
+     * @param url   wiki URL last used for the page
+     * @param count number of requests
+     */
+    public record PageAccess(String url, long count) {
+    }
+
+    private record Counter(String url, AtomicLong count) {
+    }
+
+    private final boolean enabled;
+    private final Path file;
+    private final int maxEntries;
+    // Keyed by page key, so that URLs of the same page in different spaces count together
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public AccessHistory(
+            @Value("${ones.warmup.history.enabled:false}") boolean enabled,
+            @Value("${ones.warmup.history.file:${user.home}/.ones-mcp/access-history.tsv}") Path file,
+            @Value("${ones.warmup.history.max-entries:1000}") int maxEntries) {
+        this.enabled = enabled;
+        this.file = file;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Counts a request for a page.
+     *
+     * @param page    the page
+     * @param wikiUrl the URL it was asked for with
+     */
+    public void record(WikiPageRef page, String wikiUrl) {
+        if (!enabled) {
+            return;
+        }
+        counters.compute(page.pageKey(), (key, counter) -> {
+            Counter updated = counter != null && counter.url().equals(wikiUrl) ? counter
+                    : new Counter(wikiUrl, counter != null ? counter.count() : new AtomicLong());
+            updated.count().incrementAndGet();
+            return updated;
+        });
+    }
+
+    /**
+     * @param limit maximum number of pages
+     * @return the most used pages of the stored history and this process, most used first
+     */
+    public List<PageAccess> top(int limit) {
+        return merged().stream().limit(Math.max(0, limit)).toList();
+    }
+
+    /**
+     * Adds the counts of this process to the history file.
+     */
+    synchronized void save() throws IOException {
+        if (!enabled || counters.isEmpty()) {
+            return;
+        }
+        List<PageAccess> merged = merged();
+        StringBuilder content = new StringBuilder();
+        merged.stream().limit(maxEntries)
+                .forEach(access -> content.append(access.count()).append('\t').append(access.url()).append('\n'));
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "history", null);
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        // Saved counts are in the file now; keep counting from zero
+        counters.clear();
+    }
+
+    private List<PageAccess> merged() {
+        Map<String, PageAccess> pages = new LinkedHashMap<>(load());
+        counters.forEach((key, counter) -> pages.merge(key, new PageAccess(counter.url(), counter.count().get()),
+                (stored, current) -> new PageAccess(current.url(), stored.count() + current.count())));
+        List<PageAccess> sorted = new ArrayList<>(pages.values());
+        sorted.sort(Comparator.comparingLong(PageAccess::count).reversed());
+        return sorted;
+    }
+
+    /**
+     * @return the stored history keyed by page key; lines that cannot be read are skipped
+     */
+    private Map<String, PageAccess> load() {
+        Map<String, PageAccess> pages = new HashMap<>();
+        if (!enabled || !Files.isRegularFile(file)) {
+            return pages;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", 2);
+                try {
+                    PageAccess access = new PageAccess(fields[1].trim(), Long.parseLong(fields[0].trim()));
+                    pages.merge(WikiPageRef.parse(access.url()).pageKey(), access,
+                            (first, second) -> new PageAccess(first.url(), first.count() + second.count()));
+                } catch (RuntimeException e) {
+                    // Not a count and a wiki URL
+                }
+            }
+        } catch (IOException e) {
+            // An unreadable history only means no warm-up from it
+        }
+        return pages;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            save();
+        } catch (IOException e) {
+            // The history is a hint; losing this process's counts is harmless
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Client-side adaptive concurrency limit for calls to one ONES host (AIMD),
+ * created per host by {@link ConcurrencyLimiters}.
+ * Every successful call that finishes within the latency threshold raises the
+ * limit by {@code 1/limit}, i.e. by about one per round of requests. A call that
+ * is throttled ({@code 429}), fails with {@code 5xx} or an I/O error, or exceeds
+ * the latency threshold multiplies the limit by the backoff ratio. Calls that
+ * a circuit breaker rejected, that were cancelled or that ran out of tool call
+ * time leave the limit as it is. Callers over
+ * the limit wait in a bounded queue until a permit frees up or their wait
+ * deadline passes, after which they are rejected. The wait is at most
+ * {@code max-wait}, and no longer than the tool call {@link Deadline} bound to
+ * the calling thread.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Thrown when a call could not get a permit in time or the wait queue is full.
+     */
+    public static class LimitExceededException extends RuntimeException {
+
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long acquired;
+    private long rejected;
+
+    public AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+            Duration maxWait, Duration latencyThreshold, double backoffRatio) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Runs an upstream call under the concurrency limit and feeds its outcome
+     * back into the limit.
+     *
+     * @param call the upstream call
+     * @return the call result
+     * @throws LimitExceededException if no permit was available in time
+     * @throws Deadline.DeadlineExceededException if the bound deadline passed while waiting
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        acquire();
+        long start = System.nanoTime();
+        Boolean overloaded = null;
+        try {
+            T result = call.get();
+            overloaded = System.nanoTime() - start > latencyThresholdNanos;
+            return result;
+        } catch (RuntimeException e) {
+            // Neither a rejected, a cancelled nor an out-of-time call says anything about the load of ONES
+            if (!(e instanceof CircuitBreakerRegistry.CircuitOpenException)
+                    && !(e instanceof Deadline.DeadlineExceededException)
+                    && !Thread.currentThread().isInterrupted()) {
+                overloaded = UpstreamErrors.isOverloadOrUnavailable(e)
+                        || System.nanoTime() - start > latencyThresholdNanos;
+            }
+            throw e;
+        } finally {
+            release(overloaded);
+        }
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                acquired++;
+                return;
+            }
+            if (waiting >= maxQueue) {
+                rejected++;
+                throw new LimitExceededException("ONES request queue is full (" + maxQueue + " waiting)");
+            }
+
+            waiting++;
+            try {
+                long maxWait = Deadline.capNanos(maxWaitNanos);
+                long remaining = maxWait;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        LimitExceededException e = new LimitExceededException("Timed out after "
+                                + TimeUnit.NANOSECONDS.toMillis(maxWait)
+                                + " ms waiting for the ONES concurrency limit");
+                        Deadline.rethrowIfExpired(e, "a ONES concurrency limit permit");
+                        rejected++;
+                        throw e;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+                inFlight++;
+                acquired++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected++;
+                throw new LimitExceededException("Interrupted while waiting for the ONES concurrency limit");
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param overloaded whether the call showed overload, null if it never reached ONES
+     */
+    private void release(Boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (Boolean.TRUE.equals(overloaded)) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (Boolean.FALSE.equals(overloaded)) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAcquired() {
+        lock.lock();
+        try {
+            return acquired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
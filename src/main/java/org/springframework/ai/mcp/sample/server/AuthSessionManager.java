@@ -0,0 +1,348 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the ONES login sessions. Each session is one immutable {@link Credentials}
+ * snapshot that is swapped atomically, so readers never see a token from one
+ * login paired with the user of another. Concurrent callers without a usable
+ * session share a single login, and a session is refreshed in the background
+ * {@code refresh-ahead} before its {@code session-ttl} runs out, so tool calls
+ * normally neither wait for nor repeat a login. When ONES rejects a session before
+ * then, {@link #refresh} replaces it, again with one login for all callers that
+ * saw the rejection. A resource that ONES still forbids after such a login is
+ * remembered, and later rejections for it are returned without logging in
+ * again. With a {@link SessionTokenStore} enabled, sessions are also
+ * kept on disk and the first login of a process reuses a stored session that is
+ * still valid.
+ */
+@Component
+public class AuthSessionManager implements DisposableBean {
+
+    /**
+     * Credentials of one login.
+     *
+     * @param userUuid   ONES user UUID
+     * @param token      session token
+     * @param obtainedAt when the login happened
+     */
+    public record Credentials(String userUuid, String token, Instant obtainedAt) {
+    }
+
+    /**
+     * Performs a login.
+     */
+    @FunctionalInterface
+    public interface LoginFunction {
+
+        /**
+         * @return the new credentials, or null if the login was rejected
+         */
+        Credentials login();
+    }
+
+    /** Resources remembered as forbidden, across all sessions. */
+    private static final int MAX_FORBIDDEN = 1024;
+
+    private final Duration sessionTtl;
+    private final Duration refreshAhead;
+    private final Duration reauthMinAge;
+    private final SessionTokenStore tokenStore;
+    private final ConcurrentMap<String, AtomicReference<Credentials>> sessions = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Credentials> logins = new SingleFlight<>();
+    // Session key and resource; access order, guarded by itself
+    private final Map<String, Boolean> forbidden = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_FORBIDDEN;
+        }
+    };
+    private final ScheduledExecutorService refresher;
+
+    private final AtomicLong successfulLogins = new AtomicLong();
+    private final AtomicLong failedLogins = new AtomicLong();
+    private final AtomicLong proactiveRefreshes = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong reauthentications = new AtomicLong();
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong forbiddenSkips = new AtomicLong();
+
+    public AuthSessionManager(
+            @Value("${ones.auth.session-ttl:12h}") Duration sessionTtl,
+            @Value("${ones.auth.refresh-ahead:30m}") Duration refreshAhead,
+            @Value("${ones.auth.reauth-min-age:10s}") Duration reauthMinAge,
+            SessionTokenStore tokenStore) {
+        this.sessionTtl = sessionTtl;
+        this.refreshAhead = refreshAhead;
+        this.reauthMinAge = reauthMinAge;
+        this.tokenStore = tokenStore;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ones-auth-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the current credentials of a session, logging in first if there are
+     * none or they have expired.
+     *
+     * @param sessionKey identifies the account, e.g. host and email
+     * @param login      performs the login when needed
+     * @return the credentials, or null if the login failed
+     */
+    public Credentials getCredentials(String sessionKey, LoginFunction login) {
+        Credentials current = session(sessionKey).get();
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        return login(sessionKey, login, current, false);
+    }
+
+    /**
+     * Replaces credentials that ONES has rejected. Callers that saw the same
+     * rejection share one login, and a caller whose rejected credentials have
+     * already been replaced gets the replacement without logging in. Credentials
+     * younger than {@code reauth-min-age} are not replaced: a rejection right
+     * after login is about the resource, not the session. Neither are credentials
+     * rejected for a resource {@linkplain #recordForbidden recorded as forbidden},
+     * however old they are.
+     *
+     * @param sessionKey identifies the account
+     * @param rejected   the credentials the request was rejected with
+     * @param resource   what a {@code 403} was answered for, e.g. a page key; null
+     *                   for a {@code 401}, which is always about the session
+     * @param login      performs the login when needed
+     * @return the credentials to replay the request with, or null if there are none
+     */
+    public Credentials refresh(String sessionKey, Credentials rejected, String resource, LoginFunction login) {
+        rejections.incrementAndGet();
+        AtomicReference<Credentials> session = session(sessionKey);
+        Credentials current = session.get();
+        if (current != null && current != rejected && !isExpired(current)) {
+            return current;
+        }
+        if (Duration.between(rejected.obtainedAt(), Instant.now()).compareTo(reauthMinAge) < 0) {
+            return null;
+        }
+        if (resource != null && isForbidden(sessionKey, resource)) {
+            // Fresh credentials were rejected for it before, so another login would not help
+            forbiddenSkips.incrementAndGet();
+            return null;
+        }
+        Credentials fresh = login(sessionKey, login, rejected, true);
+        if (fresh == null) {
+            // Do not hand out a session ONES no longer accepts
+            if (session.compareAndSet(rejected, null)) {
+                tokenStore.delete(sessionKey);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Records that a request rejected for its session was sent again with new
+     * credentials.
+     */
+    public void recordReplay() {
+        replays.incrementAndGet();
+    }
+
+    /**
+     * Records that a request replayed with credentials from a new login was still
+     * answered {@code 403}: the account may not access the resource, and later
+     * rejections for it are not taken as a sign of an invalid session.
+     *
+     * @param sessionKey identifies the account
+     * @param resource   the forbidden resource, e.g. a page key
+     */
+    public void recordForbidden(String sessionKey, String resource) {
+        synchronized (forbidden) {
+            forbidden.put(sessionKey + "|" + resource, Boolean.TRUE);
+        }
+    }
+
+    private boolean isForbidden(String sessionKey, String resource) {
+        synchronized (forbidden) {
+            return forbidden.get(sessionKey + "|" + resource) != null;
+        }
+    }
+
+    /**
+     * Logs in once for all concurrent callers of the session.
+     *
+     * @param stale    credentials the caller wants replaced, may be null
+     * @param reactive whether the login replaces rejected credentials
+     */
+    private Credentials login(String sessionKey, LoginFunction login, Credentials stale, boolean reactive) {
+        AtomicReference<Credentials> session = session(sessionKey);
+        return logins.execute(sessionKey, () -> {
+            // A login that finished just before this flight started is good enough
+            Credentials latest = session.get();
+            if (latest != null && latest != stale && !isExpired(latest) && !isDueForRefresh(latest)) {
+                return latest;
+            }
+            if (latest == null && stale == null) {
+                // First use in this process: a session stored by an earlier one saves the login
+                Credentials stored = tokenStore.load(sessionKey);
+                if (stored != null && !isExpired(stored)) {
+                    session.set(stored);
+                    scheduleRefresh(sessionKey, login, stored, refreshDelay(stored));
+                    return stored;
+                }
+            }
+
+            Credentials fresh;
+            try {
+                fresh = login.login();
+            } catch (RuntimeException e) {
+                failedLogins.incrementAndGet();
+                throw e;
+            }
+            if (fresh == null) {
+                failedLogins.incrementAndGet();
+                return null;
+            }
+            successfulLogins.incrementAndGet();
+            if (reactive) {
+                reauthentications.incrementAndGet();
+            }
+            session.set(fresh);
+            tokenStore.save(sessionKey, fresh);
+            scheduleRefresh(sessionKey, login, fresh, refreshDelay(fresh));
+            return fresh;
+        });
+    }
+
+    private void scheduleRefresh(String sessionKey, LoginFunction login, Credentials credentials, Duration delay) {
+        if (sessionTtl.isZero() || sessionTtl.isNegative() || refresher.isShutdown() || isExpired(credentials)) {
+            return;
+        }
+        refresher.schedule(() -> {
+            // Skip if the session has been replaced since
+            if (session(sessionKey).get() != credentials) {
+                return;
+            }
+            proactiveRefreshes.incrementAndGet();
+            Credentials fresh = null;
+            try {
+                fresh = login(sessionKey, login, credentials, false);
+            } catch (RuntimeException e) {
+                // Retried below
+            }
+            if (fresh == null && !isExpired(credentials)) {
+                // Try again while the current session is still valid
+                Duration remaining = Duration.between(Instant.now(), credentials.obtainedAt().plus(sessionTtl));
+                scheduleRefresh(sessionKey, login, credentials, remaining.dividedBy(2).plusSeconds(1));
+            }
+        }, Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private Duration refreshDelay(Credentials credentials) {
+        Instant refreshAt = credentials.obtainedAt().plus(sessionTtl).minus(refreshAhead);
+        return Duration.between(Instant.now(), refreshAt);
+    }
+
+    private boolean isExpired(Credentials credentials) {
+        return !sessionTtl.isZero() && !sessionTtl.isNegative()
+                && !Instant.now().isBefore(credentials.obtainedAt().plus(sessionTtl));
+    }
+
+    private boolean isDueForRefresh(Credentials credentials) {
+        return !sessionTtl.isZero() && !sessionTtl.isNegative()
+                && !Instant.now().isBefore(credentials.obtainedAt().plus(sessionTtl).minus(refreshAhead));
+    }
+
+    private AtomicReference<Credentials> session(String sessionKey) {
+        return sessions.computeIfAbsent(sessionKey, key -> new AtomicReference<>());
+    }
+
+    public long getSuccessfulLogins() {
+        return successfulLogins.get();
+    }
+
+    public long getFailedLogins() {
+        return failedLogins.get();
+    }
+
+    /**
+     * @return number of callers that joined a login already in flight
+     */
+    public long getCoalescedLogins() {
+        return logins.getCoalesced();
+    }
+
+    public long getProactiveRefreshes() {
+        return proactiveRefreshes.get();
+    }
+
+    /**
+     * @return number of requests ONES rejected for their session
+     */
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /**
+     * @return number of logins made to replace rejected credentials
+     */
+    public long getReauthentications() {
+        return reauthentications.get();
+    }
+
+    /**
+     * @return number of rejected requests sent again with new credentials
+     */
+    public long getReplays() {
+        return replays.get();
+    }
+
+    /**
+     * @return number of rejections not followed by a login because the resource
+     *         is known to be forbidden
+     */
+    public long getForbiddenSkips() {
+        return forbiddenSkips.get();
+    }
+
+    /**
+     * @return number of sessions currently holding credentials
+     */
+    public long getActiveSessions() {
+        return sessions.values().stream().filter(session -> session.get() != null).count();
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+}
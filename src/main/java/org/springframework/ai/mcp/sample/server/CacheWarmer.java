@@ -0,0 +1,215 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the page caches once the application is ready, with the pages listed in
+ * {@code ones.warmup.manifest} followed by the most used pages of the
+ * {@link AccessHistory}, so the first questions about them are answered from
+ * cache. Pages are fetched {@code ones.warmup.parallelism} at a time on
+ * low-priority daemon threads; progress is reported by the diagnostics tool.
+ */
+@Component
+public class CacheWarmer {
+
+    /**
+     * Progress of the warm-up.
+     *
+     * @param total     pages to warm
+     * @param completed pages done, successfully or not
+     * @param cached    pages in the cache afterwards
+     * @param failed    pages that could not be fetched
+     * @param millis    time taken so far
+     * @param finished  whether all pages are done
+     */
+    public record Progress(int total, int completed, int cached, int failed, long millis, boolean finished) {
+    }
+
+    private final OnesWikiService onesWikiService;
+    private final AccessHistory accessHistory;
+    private final boolean enabled;
+    private final String manifest;
+    private final int maxPages;
+    private final int parallelism;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger cached = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong startedAt = new AtomicLong();
+    private final AtomicLong finishedAt = new AtomicLong();
+    private volatile String error;
+
+    public CacheWarmer(OnesWikiService onesWikiService, AccessHistory accessHistory,
+            @Value("${ones.warmup.enabled:false}") boolean enabled,
+            @Value("${ones.warmup.manifest:}") String manifest,
+            @Value("${ones.warmup.max-pages:200}") int maxPages,
+            @Value("${ones.warmup.parallelism:2}") int parallelism) {
+        this.onesWikiService = onesWikiService;
+        this.accessHistory = accessHistory;
+        this.enabled = enabled;
+        this.manifest = manifest;
+        this.maxPages = maxPages;
+        this.parallelism = parallelism;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "ones-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    void warmUp() {
+        startedAt.set(System.nanoTime());
+        List<String> urls;
+        try {
+            urls = pagesToWarm();
+        } catch (IOException e) {
+            error = "Cannot read manifest: " + e.getMessage();
+            urls = pagesToWarm(List.of());
+        }
+        warm(urls, onesWikiService::warm);
+    }
+
+    /**
+     * Warms the given pages and waits until all are done.
+     *
+     * @param urls   wiki URLs
+     * @param warmer warms one page, returning whether it is cached afterwards
+     */
+    void warm(List<String> urls, Predicate<String> warmer) {
+        startedAt.compareAndSet(0, System.nanoTime());
+        total.set(urls.size());
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "ones-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        try {
+            for (String url : urls) {
+                executor.execute(() -> {
+                    try {
+                        (warmer.test(url) ? cached : failed).incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        completed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            finishedAt.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * @return the manifest pages, then the most used pages of the history, at most
+     *         {@code ones.warmup.max-pages}
+     */
+    List<String> pagesToWarm() throws IOException {
+        return pagesToWarm(manifest.isBlank() ? List.of() : readManifest(Path.of(manifest.trim())));
+    }
+
+    private List<String> pagesToWarm(List<String> listed) {
+        // Keyed by page key, so a page listed under two URLs is fetched once
+        Map<String, String> pages = new LinkedHashMap<>();
+        for (String url : listed) {
+            add(pages, url);
+        }
+        for (AccessHistory.PageAccess access : accessHistory.top(maxPages)) {
+            add(pages, access.url());
+        }
+        return pages.values().stream().limit(Math.max(0, maxPages)).toList();
+    }
+
+    private static void add(Map<String, String> pages, String url) {
+        try {
+            pages.putIfAbsent(WikiPageRef.parse(url).pageKey(), url);
+        } catch (IllegalArgumentException e) {
+            // Not a wiki page URL
+        }
+    }
+
+    /**
+     * Reads a manifest: one wiki URL per line, blank lines and lines starting with
+     * {@code #} are skipped.
+     */
+    static List<String> readManifest(Path file) throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String url = line.trim();
+            if (!url.isEmpty() && !url.startsWith("#")) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the manifest problem, or null if there is none
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the warm-up progress, or null if it has not started
+     */
+    public Progress getProgress() {
+        long start = startedAt.get();
+        if (start == 0) {
+            return null;
+        }
+        long end = finishedAt.get();
+        long millis = TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - start);
+        return new Progress(total.get(), completed.get(), cached.get(), failed.get(), millis, end != 0);
+    }
+}
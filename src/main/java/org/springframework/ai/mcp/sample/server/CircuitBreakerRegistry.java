@@ -0,0 +1,201 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Circuit breakers for the ONES APIs, one per host and endpoint (login, content,
+ * alternative content). After {@code failureThreshold} consecutive throttling,
+ * server or network failures a breaker opens and calls fail immediately with
+ * {@link CircuitOpenException}. Once {@code openDuration} has passed the breaker
+ * is half-open: a single probe call is let through. Only an answer of the
+ * endpoint closes the breaker again, and only an overload or network failure
+ * re-opens it; a probe that ends without reaching the endpoint, e.g. rejected
+ * by the concurrency limiter, cancelled or failing locally, leaves the breaker
+ * half-open for the next probe.
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    /** Breaker endpoint name for the login API. */
+    public static final String LOGIN = "login";
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of calling an endpoint whose breaker is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+
+        public CircuitOpenException(String breaker) {
+            super("Circuit breaker open for " + breaker);
+        }
+    }
+
+    /**
+     * Snapshot of one breaker.
+     */
+    public record BreakerStats(State state, int consecutiveFailures, long rejected) {
+    }
+
+    private final class CircuitBreaker {
+
+        private final String name;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAtNanos;
+        private boolean probeInFlight;
+        private long rejected;
+
+        CircuitBreaker(String name) {
+            this.name = name;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN && !probeInFlight) {
+                probeInFlight = true;
+                return true;
+            }
+            rejected++;
+            return false;
+        }
+
+        synchronized void onSuccess() {
+            probeInFlight = false;
+            consecutiveFailures = 0;
+            state = State.CLOSED;
+        }
+
+        /**
+         * The endpoint answered with an error that says nothing about its health,
+         * so a probe still shows it is reachable.
+         */
+        synchronized void onAnswered() {
+            if (probeInFlight) {
+                onSuccess();
+            }
+        }
+
+        /**
+         * The call ended without an answer of the endpoint; a probe is let through again.
+         */
+        synchronized void onNotAnswered() {
+            probeInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            boolean probe = probeInFlight;
+            probeInFlight = false;
+            consecutiveFailures++;
+            if (probe || consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAtNanos = System.nanoTime();
+            }
+        }
+
+        synchronized BreakerStats stats() {
+            return new BreakerStats(state, consecutiveFailures, rejected);
+        }
+    }
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(
+            @Value("${ones.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${ones.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${ones.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.enabled = enabled;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Runs a call through the breaker of the given host and endpoint.
+     *
+     * @param host     ONES host
+     * @param endpoint endpoint name, {@link #LOGIN} or a content endpoint name
+     * @param call     the upstream call
+     * @return the call result
+     * @throws CircuitOpenException if the breaker is open
+     */
+    public <T> T execute(String host, String endpoint, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        String name = host + " " + endpoint;
+        CircuitBreaker breaker = breakers.computeIfAbsent(name, CircuitBreaker::new);
+        if (!breaker.tryAcquire()) {
+            throw new CircuitOpenException(name);
+        }
+        try {
+            T result = call.get();
+            breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            // A cancelled call fails on its own closed connection, which says nothing about the endpoint
+            if (Thread.currentThread().isInterrupted()) {
+                breaker.onNotAnswered();
+            } else if (UpstreamErrors.isOverloadOrUnavailable(e)) {
+                breaker.onFailure();
+            } else if (e instanceof HttpStatusCodeException) {
+                breaker.onAnswered();
+            } else {
+                breaker.onNotAnswered();
+            }
+            throw e;
+        } catch (Error e) {
+            breaker.onNotAnswered();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the state of every breaker for inspection.
+     *
+     * @return breaker statistics by name, sorted by name
+     */
+    public Map<String, BreakerStats> snapshot() {
+        Map<String, BreakerStats> snapshot = new TreeMap<>();
+        breakers.forEach((name, breaker) -> snapshot.put(name, breaker.stats()));
+        return snapshot;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
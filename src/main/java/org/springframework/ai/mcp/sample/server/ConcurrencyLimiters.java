@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@link AdaptiveConcurrencyLimiter} of every ONES host from the
+ * {@code ones.limiter.*} settings. Each host adapts its own limit, so the
+ * latency of one slow host does not throttle calls to the others.
+ */
+@Component
+public class ConcurrencyLimiters {
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Duration latencyThreshold;
+    private final double backoffRatio;
+    private final ConcurrentMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiters(
+            @Value("${ones.limiter.enabled:true}") boolean enabled,
+            @Value("${ones.limiter.initial-limit:10}") int initialLimit,
+            @Value("${ones.limiter.min-limit:1}") int minLimit,
+            @Value("${ones.limiter.max-limit:50}") int maxLimit,
+            @Value("${ones.limiter.max-queue:100}") int maxQueue,
+            @Value("${ones.limiter.max-wait:5s}") Duration maxWait,
+            @Value("${ones.limiter.latency-threshold:3s}") Duration latencyThreshold,
+            @Value("${ones.limiter.backoff-ratio:0.7}") double backoffRatio) {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Returns the limiter of a host, creating it on first use.
+     *
+     * @param host ONES host name
+     * @return the limiter
+     */
+    public AdaptiveConcurrencyLimiter get(String host) {
+        return limiters.computeIfAbsent(OnesHostProfiles.normalize(host),
+                key -> new AdaptiveConcurrencyLimiter(enabled, initialLimit, minLimit, maxLimit, maxQueue, maxWait,
+                        latencyThreshold, backoffRatio));
+    }
+
+    /**
+     * @return the limiters created so far, keyed by host
+     */
+    public Map<String, AdaptiveConcurrencyLimiter> snapshot() {
+        return new TreeMap<>(limiters);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the {@code content} string out of a content API response
+ * ({@code {"content": "..."}}) as a stream of unescaped characters, so the embedded
+ * document can be parsed while it arrives instead of first being collected into a
+ * {@code String}.
+ */
+final class ContentEnvelopeReader {
+
+    private static final String CONTENT_FIELD = "content";
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    ContentEnvelopeReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Advances to the value of the {@code content} field.
+     *
+     * @return a reader over the unescaped content, or null if the field is absent or null
+     * @throws IOException if the envelope is not a JSON object
+     */
+    ContentReader openContent() throws IOException {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            return null;
+        }
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            String field = readShortString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (CONTENT_FIELD.equals(field)) {
+                if (peek() == '"') {
+                    next();
+                    return new ContentReader();
+                }
+                skipValue();
+                return null;
+            }
+            skipValue();
+            skipWhitespace();
+            int c = next();
+            if (c == '}') {
+                return null;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}' in content response");
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (next() != expected) {
+            throw error("Expected '" + expected + "' in content response");
+        }
+    }
+
+    private String readShortString() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c;
+        while ((c = readStringChar()) >= 0) {
+            value.append((char) c);
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return the next unescaped character of the current string, or -1 at its closing quote
+     */
+    private int readStringChar() throws IOException {
+        int c = next();
+        if (c == -1) {
+            throw error("Unterminated string in content response");
+        }
+        if (c == '"') {
+            return -1;
+        }
+        if (c != '\\') {
+            return c;
+        }
+        int escaped = next();
+        switch (escaped) {
+            case '"':
+            case '\\':
+            case '/':
+                return escaped;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid \\u escape in content response");
+                    }
+                    code = (code << 4) | digit;
+                }
+                return code;
+            default:
+                throw error("Invalid escape in content response");
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = next();
+        if (c == '"') {
+            while (readStringChar() >= 0) {
+                // skip
+            }
+        } else if (c == '{' || c == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                c = next();
+                if (c == -1) {
+                    throw error("Unterminated value in content response");
+                } else if (c == '"') {
+                    while (readStringChar() >= 0) {
+                        // skip
+                    }
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+        } else {
+            // Number or literal: runs until the next delimiter
+            while (true) {
+                int p = peek();
+                if (p == -1 || p == ',' || p == '}' || p == ']' || Character.isWhitespace(p)) {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+
+    private static IOException error(String message) {
+        return new IOException(message);
+    }
+
+    /**
+     * The unescaped characters of the {@code content} string; ends at its closing quote.
+     */
+    final class ContentReader extends Reader {
+
+        private StringBuilder captured;
+        private int maxCaptured;
+        private boolean captureTruncated;
+        private boolean finished;
+
+        @Override
+        public int read(char[] target, int offset, int length) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            int count = 0;
+            while (count < length) {
+                // Copy plain runs straight out of the buffer, decode escapes one by one
+                if (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                    target[offset + count++] = buffer[position++];
+                    continue;
+                }
+                if (count > 0 && position == limit) {
+                    // Hand out what we have rather than block for more
+                    break;
+                }
+                int c = readStringChar();
+                if (c < 0) {
+                    finished = true;
+                    break;
+                }
+                target[offset + count++] = (char) c;
+            }
+            if (captured != null) {
+                if (captured.length() + count <= maxCaptured) {
+                    captured.append(target, offset, count);
+                } else {
+                    // Too large to keep: drop the copy rather than let it grow with the content
+                    captured = null;
+                    captureTruncated = true;
+                }
+            }
+            return count == 0 && finished ? -1 : count;
+        }
+
+        /**
+         * Keeps a copy of the characters read from now on, for callers that need
+         * the raw content besides what they render from it. The copy is dropped
+         * as soon as it would exceed the given size.
+         *
+         * @param maxChars the most characters to keep
+         * @return this reader
+         */
+        ContentReader capture(int maxChars) {
+            captured = new StringBuilder();
+            maxCaptured = maxChars;
+            captureTruncated = false;
+            return this;
+        }
+
+        /**
+         * @return the characters read since {@link #capture(int)}, or null if not
+         *         capturing or the content was too large
+         */
+        String captured() {
+            return captured != null ? captured.toString() : null;
+        }
+
+        /**
+         * @return whether the copy was dropped because the content was too large
+         */
+        boolean isCaptureTruncated() {
+            return captureTruncated;
+        }
+
+        @Override
+        public void close() {
+            // The response body belongs to the caller, which still drains it
+        }
+    }
+}
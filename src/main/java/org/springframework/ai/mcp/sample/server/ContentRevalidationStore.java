@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.ai.mcp.sample.server.WikiPageRef.ContentEndpoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the HTTP validators of recently fetched pages. The validators
+ * ({@code ETag}, {@code Last-Modified}) are sent as conditional request headers
+ * while a render of the page is still in the page cache tiers, which is reused
+ * on {@code 304 Not Modified}. Only validators are kept here, a few hundred
+ * bytes per page, so the page text is weighed against the
+ * page cache budget alone. Entries are kept in LRU order up to
+ * {@code ones.revalidation.max-entries}.
+ */
+@Component
+public class ContentRevalidationStore {
+
+    /**
+     * Validators of one page.
+     *
+     * @param endpoint     the content endpoint the validators belong to
+     * @param etag         {@code ETag} response header, may be null
+     * @param lastModified {@code Last-Modified} response header, may be null
+     */
+    public record StoredPage(ContentEndpoint endpoint, String etag, String lastModified) {
+    }
+
+    private final boolean enabled;
+    private final Map<String, StoredPage> pages;
+
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+
+    public ContentRevalidationStore(
+            @Value("${ones.revalidation.enabled:true}") boolean enabled,
+            @Value("${ones.revalidation.max-entries:256}") int maxEntries) {
+        this.enabled = enabled;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredPage> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the stored page whose validators can be used for a conditional
+     * request to the given endpoint.
+     *
+     * @param pageKey  page key, see {@link WikiPageRef#pageKey()}
+     * @param endpoint the endpoint about to be called
+     * @return the stored page, or null if none is usable
+     */
+    public StoredPage getValidators(String pageKey, ContentEndpoint endpoint) {
+        if (!enabled) {
+            return null;
+        }
+        StoredPage stored;
+        synchronized (pages) {
+            stored = pages.get(pageKey);
+        }
+        if (stored == null || stored.endpoint() != endpoint
+                || (stored.etag() == null && stored.lastModified() == null)) {
+            return null;
+        }
+        return stored;
+    }
+
+    /**
+     * Records that the upstream answered {@code 304 Not Modified}, so the cached
+     * render was reused.
+     */
+    public void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+
+    /**
+     * Stores the validators of freshly fetched and rendered content.
+     *
+     * @param pageKey      page key
+     * @param endpoint     endpoint that returned the content
+     * @param etag         {@code ETag} response header, may be null
+     * @param lastModified {@code Last-Modified} response header, may be null
+     */
+    public void store(String pageKey, ContentEndpoint endpoint, String etag, String lastModified) {
+        rendered.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        synchronized (pages) {
+            pages.put(pageKey, new StoredPage(endpoint, etag, lastModified));
+        }
+    }
+
+    /**
+     * Forgets the validators of a page, e.g. because no copy of the content they
+     * describe is kept.
+     *
+     * @param pageKey page key
+     */
+    public void remove(String pageKey) {
+        synchronized (pages) {
+            pages.remove(pageKey);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    public long getRendered() {
+        return rendered.get();
+    }
+}
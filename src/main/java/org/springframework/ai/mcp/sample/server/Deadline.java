@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Time budget of one tool call. Each stage of the call (login, primary fetch,
+ * fallback fetch, rendering) checks the deadline before it starts, so later
+ * stages only get what earlier ones left over. While a deadline is
+ * {@linkplain #call(Supplier) bound} to a thread, the concurrency limiter and
+ * the HTTP transports also cap their waits and timeouts at the time remaining.
+ */
+final class Deadline {
+
+    /**
+     * Thrown when a stage is about to start after the deadline has passed.
+     */
+    static class DeadlineExceededException extends RuntimeException {
+
+        DeadlineExceededException(String stage, Duration budget) {
+            super("Tool call deadline of " + budget.toMillis() + " ms exceeded before " + stage);
+        }
+    }
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final Duration budget;
+    private final long expiresAtNanos;
+
+    private Deadline(Duration budget) {
+        this.budget = budget;
+        this.expiresAtNanos = System.nanoTime() + budget.toNanos();
+    }
+
+    /**
+     * @param budget time budget, null or non-positive for no deadline
+     * @return a deadline that expires after the budget
+     */
+    static Deadline after(Duration budget) {
+        if (budget == null || budget.isZero() || budget.isNegative()) {
+            // About 292 years, i.e. effectively no deadline without risking overflow
+            return new Deadline(Duration.ofNanos(Long.MAX_VALUE / 2));
+        }
+        return new Deadline(budget);
+    }
+
+    /**
+     * Runs a call with this deadline bound to the calling thread.
+     *
+     * @param call the call
+     * @return the call result
+     */
+    <T> T call(Supplier<T> call) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @return the deadline bound to the calling thread, or null
+     */
+    static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Caps a timeout at the time remaining until the deadline bound to the
+     * calling thread.
+     *
+     * @param timeoutNanos the configured timeout
+     * @return the smaller of the timeout and the remaining time, at least 1 ms
+     */
+    static long capNanos(long timeoutNanos) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return timeoutNanos;
+        }
+        return Math.max(1_000_000, Math.min(timeoutNanos, deadline.remainingNanos()));
+    }
+
+    /**
+     * Reports a failure caused by timeouts capped at the deadline bound to the
+     * calling thread as the deadline being exceeded, which says nothing about
+     * the health of ONES.
+     *
+     * @param failure a failure of a call to ONES
+     * @param stage   the stage that ran out of time, for the error message
+     * @throws DeadlineExceededException if the bound deadline has passed
+     */
+    static void rethrowIfExpired(Exception failure, String stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            DeadlineExceededException exceeded = new DeadlineExceededException(stage, deadline.budget);
+            exceeded.initCause(failure);
+            throw exceeded;
+        }
+    }
+
+    Duration budget() {
+        return budget;
+    }
+
+    long remainingNanos() {
+        return Math.max(0, expiresAtNanos - System.nanoTime());
+    }
+
+    boolean isExpired() {
+        return remainingNanos() == 0;
+    }
+
+    /**
+     * @param stage name of the stage about to start, for the error message
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    void check(String stage) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(stage, budget);
+        }
+    }
+}
@@ -0,0 +1,741 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Keeps raw page content on disk so that a new server process, such as one
+ * started per stdio client, answers repeat requests without calling ONES.
+ * Records are appended to segment files of {@code ones.disk-cache.segment-size}
+ * and read through memory mappings; each carries a CRC32C checksum, and a record
+ * that fails it is ignored. An in-memory index from page key to record is built
+ * from the segments on a background thread at startup; until it is ready, reads
+ * miss and writes are skipped rather than wait for it. Writes that would take the
+ * store past {@code ones.disk-cache.max-bytes} are rejected and start a
+ * compaction instead. A removed page is superseded by an empty record fetched at
+ * the epoch, which reads as expired and is dropped by the next compaction.
+ * <p>
+ * Several processes can share the directory: the first one to take
+ * {@code writer.lock} appends and compacts, the others only read and pick up new
+ * segments and records as they look for pages they do not know yet. When the
+ * writer exits, the next process that stores a page takes over. Compaction runs
+ * in the background every {@code ones.disk-cache.compaction-interval}; it copies
+ * the live records into new segments, dropping superseded and expired ones and,
+ * beyond three quarters of {@code ones.disk-cache.max-bytes}, those fetched
+ * longest ago, so that the store has room to grow again.
+ */
+@Component
+public class DiskPageStore implements DisposableBean {
+
+    /**
+     * Content read back from disk.
+     *
+     * @param value     the stored content
+     * @param fetchedAt when the content was fetched from ONES
+     */
+    public record StoredContent(String value, Instant fetchedAt) {
+    }
+
+    // Record layout: magic, key length, value length, fetched at (epoch millis), CRC32C, key, value.
+    // The magic is written last, so a reader never sees a record before it is complete.
+    private static final int MAGIC = 0x4F505331;
+    private static final int HEADER = 24;
+    private static final int CHECKSUM_OFFSET = 20;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+    private static final String LOCK_FILE = "writer.lock";
+    private static final long REFRESH_INTERVAL_MILLIS = 1000;
+    private static final long TAKEOVER_INTERVAL_MILLIS = 10_000;
+    /** Fetch time of the record that marks a page as removed. */
+    private static final long REMOVED = 0;
+
+    /**
+     * Where the latest record of a key is.
+     */
+    private record Location(Segment segment, int offset, int length, long fetchedAt) {
+
+        boolean isNewerThan(Location other) {
+            return segment.id != other.segment.id ? segment.id > other.segment.id : offset > other.offset;
+        }
+    }
+
+    private static final class Segment {
+
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        // Scanned or written up to here, guarded by the store
+        int end;
+
+        Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final ScheduledExecutorService background;
+    private final AtomicBoolean compactionRequested = new AtomicBoolean();
+
+    private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Guarded by this
+    private boolean opened;
+    private FileChannel lockChannel;
+    private FileLock writerLock;
+    private Segment active;
+    private long lastTakeoverAttempt;
+    private volatile long lastRefresh;
+    private volatile boolean indexed;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+    private final AtomicLong checksumFailures = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public DiskPageStore(
+            @Value("${ones.disk-cache.enabled:false}") boolean enabled,
+            @Value("${ones.disk-cache.directory:${user.home}/.ones-mcp/pages}") Path directory,
+            @Value("${ones.disk-cache.segment-size:32MB}") DataSize segmentSize,
+            @Value("${ones.disk-cache.max-bytes:512MB}") DataSize maxBytes,
+            @Value("${ones.disk-cache.ttl:1h}") Duration ttl,
+            @Value("${ones.disk-cache.compaction-interval:10m}") Duration compactionInterval) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, Math.max(HEADER + 1, segmentSize.toBytes()));
+        this.maxBytes = maxBytes.toBytes();
+        this.ttlMillis = ttl.toMillis();
+        if (enabled) {
+            this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ones-disk-cache");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            // Scanning the segments takes a while with a full store, so it does not wait for the first request
+            background.execute(this::open);
+            if (compactionInterval.toMillis() > 0) {
+                background.scheduleWithFixedDelay(this::compactQuietly, compactionInterval.toMillis(),
+                        compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } else {
+            this.background = null;
+        }
+    }
+
+    /**
+     * Reads the stored content of a page.
+     *
+     * @param key page key, see {@link WikiPageRef#pageKey()}
+     * @return the content, or null if none is stored, it expired, failed its
+     *         checksum or the index is not built yet
+     */
+    public StoredContent get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        if (!indexed) {
+            misses.incrementAndGet();
+            return null;
+        }
+        Location location = index.get(key);
+        if (location == null || isExpired(location)) {
+            // Another process may have stored it since we last looked
+            if (System.currentTimeMillis() - lastRefresh >= REFRESH_INTERVAL_MILLIS) {
+                refresh();
+                location = index.get(key);
+            }
+        }
+        if (location == null || isExpired(location)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        byte[] record = read(location);
+        if (record == null) {
+            index.remove(key, location);
+            misses.incrementAndGet();
+            return null;
+        }
+        int keyLength = intAt(record, 4);
+        hits.incrementAndGet();
+        return new StoredContent(new String(record, HEADER + keyLength, record.length - HEADER - keyLength,
+                StandardCharsets.UTF_8), Instant.ofEpochMilli(location.fetchedAt()));
+    }
+
+    /**
+     * Stores the content of a page, replacing what was stored before. Does nothing
+     * in a process that is not the writer of the directory, nor while the index is
+     * being built.
+     *
+     * @param key   page key
+     * @param value the content
+     */
+    public void put(String key, String value) {
+        if (!enabled || value == null || !indexed) {
+            return;
+        }
+        byte[] record = record(key, value.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+        if (record != null) {
+            write(key, record);
+        }
+    }
+
+    /**
+     * Removes the stored content of a page, e.g. because the page has changed
+     * into content too large to store, so that the outdated copy is not served.
+     * The writer appends a removal record, which supersedes the page in every
+     * process sharing the directory; any other process only forgets the page
+     * itself.
+     *
+     * @param key page key
+     */
+    public void remove(String key) {
+        if (!enabled || !indexed) {
+            return;
+        }
+        Location location = index.get(key);
+        if (location == null || location.fetchedAt() == REMOVED) {
+            return;
+        }
+        byte[] record = record(key, new byte[0], REMOVED);
+        if (record == null || !write(key, record)) {
+            index.remove(key, location);
+        }
+    }
+
+    /**
+     * @return the record of a page, or null if it does not fit in a segment
+     */
+    private byte[] record(String key, byte[] value, long fetchedAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long length = (long) HEADER + keyBytes.length + value.length;
+        if (length > segmentSize) {
+            return null;
+        }
+        byte[] record = new byte[(int) length];
+        putInt(record, 0, MAGIC);
+        putInt(record, 4, keyBytes.length);
+        putInt(record, 8, value.length);
+        putLong(record, 12, fetchedAt);
+        System.arraycopy(keyBytes, 0, record, HEADER, keyBytes.length);
+        System.arraycopy(value, 0, record, HEADER + keyBytes.length, value.length);
+        putInt(record, CHECKSUM_OFFSET, checksum(record));
+        return record;
+    }
+
+    /**
+     * Marks the stored content of a page as fetched now, e.g. after ONES answered
+     * {@code 304 Not Modified}, by appending a copy of its record with the new
+     * time. Does nothing if the page is not stored.
+     *
+     * @param key page key
+     */
+    public void touch(String key) {
+        if (!enabled || !indexed) {
+            return;
+        }
+        Location location = index.get(key);
+        byte[] record = location != null && location.fetchedAt() != REMOVED ? read(location) : null;
+        if (record == null) {
+            return;
+        }
+        putLong(record, 12, System.currentTimeMillis());
+        putInt(record, CHECKSUM_OFFSET, checksum(record));
+        write(key, record);
+    }
+
+    /**
+     * @return whether the record was appended
+     */
+    private synchronized boolean write(String key, byte[] record) {
+        if (!isWriter() && !takeOver()) {
+            return false;
+        }
+        // Removal records are let through, so that a full store does not keep serving removed pages
+        if (storedBytes() + record.length > maxBytes && longAt(record, 12) != REMOVED) {
+            // Full: make room in the background rather than grow past the limit
+            rejectedWrites.incrementAndGet();
+            requestCompaction();
+            return false;
+        }
+        try {
+            Location location = append(record);
+            index.merge(key, location, DiskPageStore::newer);
+            writes.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void requestCompaction() {
+        if (compactionRequested.compareAndSet(false, true)) {
+            background.execute(() -> {
+                compactionRequested.set(false);
+                compactQuietly();
+            });
+        }
+    }
+
+    /**
+     * Opens the directory and builds the index, once.
+     */
+    synchronized void open() {
+        if (!opened) {
+            opened = true;
+            try {
+                createDirectory();
+                lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                tryLock();
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            }
+            refresh();
+            indexed = lockChannel != null;
+        }
+    }
+
+    private void tryLock() throws IOException {
+        try {
+            writerLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Another store in this JVM writes to the directory
+            writerLock = null;
+        }
+    }
+
+    private boolean isWriter() {
+        return writerLock != null && writerLock.isValid();
+    }
+
+    /**
+     * Becomes the writer if the previous one has exited.
+     */
+    private boolean takeOver() {
+        long now = System.currentTimeMillis();
+        if (now - lastTakeoverAttempt < TAKEOVER_INTERVAL_MILLIS) {
+            return false;
+        }
+        lastTakeoverAttempt = now;
+        try {
+            tryLock();
+        } catch (IOException e) {
+            failures.incrementAndGet();
+        }
+        if (isWriter()) {
+            // Learn every segment the previous writer left before creating new ones
+            refresh();
+        }
+        return isWriter();
+    }
+
+    /**
+     * Maps new segments and indexes the records added to known ones since they
+     * were last scanned. Segments deleted by a compaction elsewhere are dropped
+     * once their records have been indexed again from the compacted segments.
+     */
+    synchronized void refresh() {
+        lastRefresh = System.currentTimeMillis();
+        List<Long> onDisk = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                Long id = segmentId(file);
+                if (id != null) {
+                    onDisk.add(id);
+                }
+            }
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            return;
+        }
+        onDisk.sort(Comparator.naturalOrder());
+        for (long id : onDisk) {
+            Segment segment = segments.get(id);
+            if (segment == null || (segment != active && segment.buffer.capacity() < segmentSize)) {
+                // New, or mapped while its writer was still growing it
+                Segment mapped = map(id);
+                if (mapped == null) {
+                    continue;
+                }
+                mapped.end = segment != null ? segment.end : 0;
+                segment = mapped;
+                segments.put(id, segment);
+            }
+            scan(segment);
+        }
+        for (Segment segment : segments.values()) {
+            if (!onDisk.contains(segment.id) && segment != active) {
+                segments.remove(segment.id);
+                index.values().removeIf(location -> location.segment().id == segment.id);
+            }
+        }
+    }
+
+    private Segment map(long id) {
+        Path path = segmentPath(id);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), segmentSize);
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (NoSuchFileException e) {
+            // Removed by a compaction in the meantime
+            return null;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Indexes the complete records from where the last scan stopped.
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.end;
+        while (position + HEADER <= buffer.capacity() && buffer.getInt(position) == MAGIC) {
+            int keyLength = buffer.getInt(position + 4);
+            int valueLength = buffer.getInt(position + 8);
+            long length = (long) HEADER + keyLength + valueLength;
+            if (keyLength <= 0 || valueLength < 0 || position + length > buffer.capacity()) {
+                // Garbage: nothing after it can be trusted
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            buffer.get(position + HEADER, key);
+            Location location = new Location(segment, position, (int) length, buffer.getLong(position + 12));
+            index.merge(new String(key, StandardCharsets.UTF_8), location, DiskPageStore::newer);
+            position += (int) length;
+        }
+        segment.end = position;
+    }
+
+    private Location append(byte[] record) throws IOException {
+        if (active == null || active.end + record.length > active.buffer.capacity()) {
+            active = createSegment();
+        }
+        int offset = active.end;
+        active.buffer.put(offset + 4, record, 4, record.length - 4);
+        active.buffer.putInt(offset, MAGIC);
+        active.end = offset + record.length;
+        return new Location(active, offset, record.length, longAt(record, 12));
+    }
+
+    private Segment createSegment() throws IOException {
+        long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path path = segmentPath(id);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the unwritten part stays sparse
+            Segment segment = new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            restrict(path, EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+            segments.put(id, segment);
+            return segment;
+        }
+    }
+
+    /**
+     * @return the record with a valid checksum, or null
+     */
+    private byte[] read(Location location) {
+        byte[] record = new byte[location.length()];
+        location.segment().buffer.get(location.offset(), record);
+        if (intAt(record, 0) != MAGIC || checksum(record) != intAt(record, CHECKSUM_OFFSET)) {
+            checksumFailures.incrementAndGet();
+            return null;
+        }
+        return record;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Rewrites the live records into new segments and deletes the old ones, if at
+     * least half of the stored bytes are superseded or expired, or the store
+     * exceeds three quarters of its size limit. Only the writer compacts.
+     */
+    synchronized void compact() {
+        if (!enabled) {
+            return;
+        }
+        open();
+        if (!indexed || !isWriter()) {
+            return;
+        }
+        refresh();
+        long written = storedBytes();
+        long keepLimit = maxBytes - maxBytes / 4;
+        List<Map.Entry<String, Location>> live = new ArrayList<>();
+        long liveBytes = 0;
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (!isExpired(entry.getValue())) {
+                live.add(entry);
+                liveBytes += entry.getValue().length();
+            }
+        }
+        if (written == 0 || (written - liveBytes <= written / 2 && written <= keepLimit)) {
+            return;
+        }
+
+        List<Segment> old = new ArrayList<>(segments.values());
+        active = null;
+        // Keep the most recently fetched pages when the live records exceed the limit
+        live.sort(Comparator.comparingLong(
+                (Map.Entry<String, Location> entry) -> entry.getValue().fetchedAt()).reversed());
+        long kept = 0;
+        try {
+            for (Map.Entry<String, Location> entry : live) {
+                Location location = entry.getValue();
+                byte[] record = kept + location.length() <= keepLimit ? read(location) : null;
+                if (record == null) {
+                    index.remove(entry.getKey(), location);
+                    continue;
+                }
+                index.replace(entry.getKey(), location, append(record));
+                kept += record.length;
+            }
+        } catch (IOException e) {
+            // Records not copied yet stay readable from the old segments
+            failures.incrementAndGet();
+            return;
+        }
+        for (Segment segment : old) {
+            segments.remove(segment.id);
+            index.values().removeIf(location -> location.segment().id == segment.id);
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                // Still mapped elsewhere on some platforms; a later compaction removes it
+                failures.incrementAndGet();
+            }
+        }
+        compactions.incrementAndGet();
+    }
+
+    private boolean isExpired(Location location) {
+        return location.fetchedAt() == REMOVED || System.currentTimeMillis() - location.fetchedAt() >= ttlMillis;
+    }
+
+    private static Location newer(Location current, Location candidate) {
+        return candidate.isNewerThan(current) ? candidate : current;
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, 4, CHECKSUM_OFFSET - 4);
+        crc.update(record, HEADER, record.length - HEADER);
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%012d%s", PREFIX, id, SUFFIX));
+    }
+
+    private static Long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        restrict(directory, EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+                PosixFilePermission.OWNER_EXECUTE));
+    }
+
+    private static void restrict(Path path, Set<PosixFilePermission> permissions) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system: fall back to the owner-only flags it has
+            File file = path.toFile();
+            file.setReadable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(false, false);
+            file.setWritable(true, true);
+        }
+    }
+
+    private static int intAt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8
+                | (bytes[offset + 3] & 0xff);
+    }
+
+    private static long longAt(byte[] bytes, int offset) {
+        return (long) intAt(bytes, offset) << 32 | (intAt(bytes, offset + 4) & 0xffffffffL);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        putInt(bytes, offset, (int) (value >>> 32));
+        putInt(bytes, offset + 4, (int) value);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if this process appends to and compacts the store
+     */
+    public synchronized boolean isWriting() {
+        return isWriter();
+    }
+
+    public int getSegments() {
+        return segments.size();
+    }
+
+    public int getEntries() {
+        return index.size();
+    }
+
+    /**
+     * @return bytes of records in the mapped segments, live or not
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes();
+    }
+
+    private long storedBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.end).sum();
+    }
+
+    /**
+     * @return whether the index has been built and the store is in use
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * @return writes rejected because the store was full
+     */
+    public long getRejectedWrites() {
+        return rejectedWrites.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getChecksumFailures() {
+        return checksumFailures.get();
+    }
+
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    /**
+     * @return I/O errors while opening, writing or compacting the store
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (background != null) {
+            background.shutdownNow();
+        }
+        // An open still queued must not take the lock after this
+        opened = true;
+        indexed = false;
+        if (active != null) {
+            active.buffer.force();
+        }
+        try {
+            if (writerLock != null) {
+                writerLock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            // The lock goes with the process anyway
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ai.mcp.sample.server.WikiPageRef.ContentEndpoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Learns, per team, which content endpoint works.
+ * Some ONES installations always fail on {@code /online_page/{uuid}/content}
+ * for certain teams. After {@code failureThreshold} consecutive failures of the
+ * preferred endpoint, the team is routed straight to the other endpoint. While a
+ * team is routed away from the default endpoint, the default is re-probed first
+ * once per {@code reprobeInterval} and the team switches back when it answers.
+ */
+@Component
+public class EndpointRoutingTable {
+
+    /**
+     * Snapshot of the learned routing for one team.
+     */
+    public record RouteStats(ContentEndpoint preferred, long onlinePageSuccesses, long onlinePageFailures,
+            long pageSuccesses, long pageFailures) {
+    }
+
+    private static final class TeamRoute {
+        private ContentEndpoint preferred = ContentEndpoint.ONLINE_PAGE_CONTENT;
+        private final long[] successes = new long[ContentEndpoint.values().length];
+        private final long[] failures = new long[ContentEndpoint.values().length];
+        private final int[] consecutiveFailures = new int[ContentEndpoint.values().length];
+        private long lastSwitchOrProbeNanos;
+    }
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long reprobeIntervalNanos;
+    private final Map<String, TeamRoute> routes = new ConcurrentHashMap<>();
+
+    public EndpointRoutingTable(
+            @Value("${ones.routing.enabled:true}") boolean enabled,
+            @Value("${ones.routing.failure-threshold:2}") int failureThreshold,
+            @Value("${ones.routing.reprobe-interval:10m}") Duration reprobeInterval) {
+        this.enabled = enabled;
+        this.failureThreshold = failureThreshold;
+        this.reprobeIntervalNanos = reprobeInterval.toNanos();
+    }
+
+    /**
+     * Chooses the endpoint to try first for a team.
+     *
+     * @param teamKey team key, see {@link WikiPageRef#teamKey()}
+     * @return the endpoint to try first; the other one is the fallback
+     */
+    public ContentEndpoint firstEndpoint(String teamKey) {
+        if (!enabled) {
+            return ContentEndpoint.ONLINE_PAGE_CONTENT;
+        }
+        TeamRoute route = routes.get(teamKey);
+        if (route == null) {
+            return ContentEndpoint.ONLINE_PAGE_CONTENT;
+        }
+        synchronized (route) {
+            if (route.preferred != ContentEndpoint.ONLINE_PAGE_CONTENT
+                    && System.nanoTime() - route.lastSwitchOrProbeNanos >= reprobeIntervalNanos) {
+                route.lastSwitchOrProbeNanos = System.nanoTime();
+                return ContentEndpoint.ONLINE_PAGE_CONTENT;
+            }
+            return route.preferred;
+        }
+    }
+
+    /**
+     * Records a successful call to an endpoint.
+     */
+    public void recordSuccess(String teamKey, ContentEndpoint endpoint) {
+        if (!enabled) {
+            return;
+        }
+        TeamRoute route = routes.computeIfAbsent(teamKey, key -> new TeamRoute());
+        synchronized (route) {
+            route.successes[endpoint.ordinal()]++;
+            route.consecutiveFailures[endpoint.ordinal()] = 0;
+            // A successful re-probe of the default endpoint routes the team back to it
+            if (endpoint == ContentEndpoint.ONLINE_PAGE_CONTENT && route.preferred != endpoint) {
+                route.preferred = endpoint;
+                route.lastSwitchOrProbeNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Records a failed call to an endpoint.
+     */
+    public void recordFailure(String teamKey, ContentEndpoint endpoint) {
+        if (!enabled) {
+            return;
+        }
+        TeamRoute route = routes.computeIfAbsent(teamKey, key -> new TeamRoute());
+        synchronized (route) {
+            route.failures[endpoint.ordinal()]++;
+            int failures = ++route.consecutiveFailures[endpoint.ordinal()];
+            if (endpoint == route.preferred && failures >= failureThreshold
+                    && route.consecutiveFailures[endpoint.other().ordinal()] < failureThreshold) {
+                route.preferred = endpoint.other();
+                route.lastSwitchOrProbeNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Returns the learned routing table for inspection.
+     *
+     * @return routing statistics by team key, sorted by key
+     */
+    public Map<String, RouteStats> snapshot() {
+        Map<String, RouteStats> snapshot = new TreeMap<>();
+        routes.forEach((teamKey, route) -> {
+            synchronized (route) {
+                snapshot.put(teamKey, new RouteStats(route.preferred,
+                        route.successes[ContentEndpoint.ONLINE_PAGE_CONTENT.ordinal()],
+                        route.failures[ContentEndpoint.ONLINE_PAGE_CONTENT.ordinal()],
+                        route.successes[ContentEndpoint.PAGE.ordinal()],
+                        route.failures[ContentEndpoint.PAGE.ordinal()]));
+            }
+        });
+        return snapshot;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
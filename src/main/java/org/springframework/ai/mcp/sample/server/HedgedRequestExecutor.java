@@ -0,0 +1,232 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a primary request with an alternative fallback.
+ * Without hedging the alternative only starts once the primary has failed.
+ * With hedging enabled, the alternative is also started when the primary has
+ * not answered within the hedge delay; the first successful answer wins and the
+ * other request is cancelled. Cancelling aborts its HTTP requests through a
+ * {@link RequestCancellation}, so the loser gives its connection back right away
+ * instead of holding it until its socket times out. The hedge delay is either fixed or, when adaptive,
+ * the learned p95 latency of the primary request.
+ */
+@Component
+public class HedgedRequestExecutor implements DisposableBean {
+
+    /**
+     * Outcome of a hedged call.
+     *
+     * @param value       the response
+     * @param alternative whether the alternative request produced the response
+     */
+    public record HedgedResult<T>(T value, boolean alternative) {
+    }
+
+    /**
+     * Thrown when both the primary and the alternative request failed.
+     */
+    public static class BothFailedException extends Exception {
+
+        private final Throwable primaryFailure;
+        private final Throwable alternativeFailure;
+
+        public BothFailedException(Throwable primaryFailure, Throwable alternativeFailure) {
+            super("Both primary and alternative requests failed", alternativeFailure);
+            this.primaryFailure = primaryFailure;
+            this.alternativeFailure = alternativeFailure;
+        }
+
+        public Throwable getPrimaryFailure() {
+            return primaryFailure;
+        }
+
+        public Throwable getAlternativeFailure() {
+            return alternativeFailure;
+        }
+    }
+
+    private final boolean enabled;
+    private final Duration delay;
+    private final boolean adaptiveDelay;
+    private final LatencyTracker primaryLatency = new LatencyTracker(256, 20);
+    private final ExecutorService executor;
+
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    public HedgedRequestExecutor(
+            @Value("${ones.hedging.enabled:false}") boolean enabled,
+            @Value("${ones.hedging.delay:500ms}") Duration delay,
+            @Value("${ones.hedging.adaptive-delay:true}") boolean adaptiveDelay) {
+        this.enabled = enabled;
+        this.delay = delay;
+        this.adaptiveDelay = adaptiveDelay;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ones-hedge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executes the primary request, falling back to (or hedging with) the
+     * alternative request.
+     *
+     * @param primary     the preferred request
+     * @param alternative the fallback request
+     * @return the first successful response
+     * @throws BothFailedException  if both requests failed
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> HedgedResult<T> execute(Callable<T> primary, Callable<T> alternative)
+            throws BothFailedException, InterruptedException {
+        Callable<T> timedPrimary = () -> {
+            long start = System.nanoTime();
+            T value = primary.call();
+            primaryLatency.record(System.nanoTime() - start);
+            return value;
+        };
+
+        if (!enabled) {
+            return executeSequentially(timedPrimary, alternative);
+        }
+
+        ExecutorCompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        RequestCancellation primaryCancellation = new RequestCancellation();
+        RequestCancellation alternativeCancellation = new RequestCancellation();
+        Future<T> primaryFuture = completionService.submit(() -> primaryCancellation.call(timedPrimary));
+        Future<T> alternativeFuture = null;
+        try {
+            Future<T> completed = completionService.poll(currentHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            if (completed != null) {
+                try {
+                    return new HedgedResult<>(completed.get(), false);
+                } catch (ExecutionException e) {
+                    // Primary failed before the hedge delay: plain fallback
+                    return new HedgedResult<>(callAlternative(alternative, e.getCause()), true);
+                }
+            }
+
+            hedgesFired.incrementAndGet();
+            alternativeFuture = completionService.submit(() -> alternativeCancellation.call(alternative));
+
+            Throwable primaryFailure = null;
+            Throwable alternativeFailure = null;
+            for (int i = 0; i < 2; i++) {
+                Future<T> next = completionService.take();
+                boolean isAlternative = next == alternativeFuture;
+                try {
+                    T value = next.get();
+                    if (isAlternative) {
+                        hedgesWon.incrementAndGet();
+                        cancel(primaryFuture, primaryCancellation);
+                    } else {
+                        cancel(alternativeFuture, alternativeCancellation);
+                    }
+                    return new HedgedResult<>(value, isAlternative);
+                } catch (ExecutionException e) {
+                    if (isAlternative) {
+                        alternativeFailure = e.getCause();
+                    } else {
+                        primaryFailure = e.getCause();
+                    }
+                }
+            }
+            throw new BothFailedException(primaryFailure, alternativeFailure);
+        } catch (InterruptedException e) {
+            cancel(primaryFuture, primaryCancellation);
+            if (alternativeFuture != null) {
+                cancel(alternativeFuture, alternativeCancellation);
+            }
+            throw e;
+        }
+    }
+
+    private static void cancel(Future<?> future, RequestCancellation cancellation) {
+        // The interrupt stops waits and retries, the cancellation the blocked I/O
+        future.cancel(true);
+        cancellation.cancel();
+    }
+
+    private <T> HedgedResult<T> executeSequentially(Callable<T> primary, Callable<T> alternative)
+            throws BothFailedException {
+        T value;
+        try {
+            value = primary.call();
+        } catch (Exception primaryException) {
+            return new HedgedResult<>(callAlternative(alternative, primaryException), true);
+        }
+        return new HedgedResult<>(value, false);
+    }
+
+    private <T> T callAlternative(Callable<T> alternative, Throwable primaryFailure) throws BothFailedException {
+        try {
+            return alternative.call();
+        } catch (Exception alternativeException) {
+            throw new BothFailedException(primaryFailure, alternativeException);
+        }
+    }
+
+    private long currentHedgeDelayNanos() {
+        if (adaptiveDelay) {
+            long p95 = primaryLatency.percentile(0.95);
+            if (p95 > 0) {
+                return p95;
+            }
+        }
+        return delay.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHedgesFired() {
+        return hedgesFired.get();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    public long getPrimaryP95Millis() {
+        long p95 = primaryLatency.percentile(0.95);
+        return p95 < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(p95);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 
 /**
@@ -20,15 +21,20 @@ public class McpServerApplication {
     }
 
     /**
-     * Configures the ONES Wiki tools for MCP server.
+     * Configures the ONES Wiki tools for the (default) SYNC MCP server.
+     * With {@code spring.ai.mcp.server.type=ASYNC} the non-blocking tools from
+     * {@link OnesWikiAsyncToolConfig} are registered instead.
      * 
-     * @param onesWikiService the service for handling ONES Wiki operations
+     * @param onesWikiService     the service for handling ONES Wiki operations
+     * @param onesWikiDiagnostics the diagnostics of the ONES Wiki service
      * @return ToolCallbackProvider configured with ONES Wiki tools
      */
     @Bean
-    public ToolCallbackProvider onesWikiTools(OnesWikiService onesWikiService) {
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "SYNC", matchIfMissing = true)
+    public ToolCallbackProvider onesWikiTools(OnesWikiService onesWikiService,
+            OnesWikiDiagnostics onesWikiDiagnostics) {
         return MethodToolCallbackProvider.builder()
-                .toolObjects(onesWikiService)
+                .toolObjects(onesWikiService, onesWikiDiagnostics)
                 .build();
     }
 }
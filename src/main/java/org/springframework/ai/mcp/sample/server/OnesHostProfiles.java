@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Credentials of the ONES hosts served in addition to {@code ones.host}, bound
+ * from {@code ones.hosts.<name>.host}, {@code .email} and {@code .password}. Pages
+ * are matched to a profile by the host in their URL; credentials are never sent
+ * to a host without one. Further service accounts of a host are listed under
+ * {@code ones.hosts.<name>.accounts[i]}, those of {@code ones.host} under
+ * {@code ones.accounts[i]}, each with {@code email} and {@code password}.
+ */
+@Component
+public class OnesHostProfiles {
+
+    /**
+     * A ONES login.
+     *
+     * @param email    login email
+     * @param password login password
+     */
+    public record Account(String email, String password) {
+    }
+
+    /**
+     * Accounts used on one ONES host.
+     *
+     * @param host     ONES host name as it appears in wiki URLs
+     * @param email    login email of the main account
+     * @param password login password of the main account
+     * @param accounts further service accounts, may be null
+     */
+    public record HostProfile(String host, String email, String password, List<Account> accounts) {
+
+        /**
+         * @return the main account followed by the further ones
+         */
+        public List<Account> allAccounts() {
+            List<Account> all = new ArrayList<>();
+            all.add(new Account(email, password));
+            if (accounts != null) {
+                all.addAll(accounts);
+            }
+            return all;
+        }
+
+        /**
+         * @return key of the main account's login session
+         */
+        public String sessionKey() {
+            return sessionKey(new Account(email, password));
+        }
+
+        /**
+         * @param account one of the accounts of this host
+         * @return key of the account's login session
+         */
+        public String sessionKey(Account account) {
+            return host + "|" + account.email();
+        }
+    }
+
+    private final Map<String, HostProfile> profiles = new HashMap<>();
+    private final List<Account> defaultAccounts;
+
+    @Autowired
+    public OnesHostProfiles(Environment environment) {
+        this(Binder.get(environment)
+                .bind("ones.hosts", Bindable.mapOf(String.class, HostProfile.class))
+                .orElse(Map.of()),
+                Binder.get(environment)
+                        .bind("ones.accounts", Bindable.listOf(Account.class))
+                        .orElse(List.of()));
+    }
+
+    OnesHostProfiles(Map<String, HostProfile> namedProfiles) {
+        this(namedProfiles, List.of());
+    }
+
+    OnesHostProfiles(Map<String, HostProfile> namedProfiles, List<Account> defaultAccounts) {
+        namedProfiles.forEach((name, profile) -> {
+            if (isBlank(profile.host()) || isBlank(profile.email()) || isBlank(profile.password())) {
+                throw new IllegalArgumentException("ones.hosts." + name + ": host, email and password are required");
+            }
+            validate("ones.hosts." + name + ".accounts", profile.accounts());
+            profiles.put(normalize(profile.host()), profile);
+        });
+        validate("ones.accounts", defaultAccounts);
+        this.defaultAccounts = List.copyOf(defaultAccounts);
+    }
+
+    private static void validate(String property, List<Account> accounts) {
+        if (accounts == null) {
+            return;
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            if (isBlank(accounts.get(i).email()) || isBlank(accounts.get(i).password())) {
+                throw new IllegalArgumentException(property + "[" + i + "]: email and password are required");
+            }
+        }
+    }
+
+    /**
+     * @param host host name from a wiki URL
+     * @return the profile of the host, or null if none is configured
+     */
+    public HostProfile get(String host) {
+        return profiles.get(normalize(host));
+    }
+
+    public Collection<HostProfile> getAll() {
+        return profiles.values();
+    }
+
+    /**
+     * @return further service accounts of {@code ones.host}
+     */
+    public List<Account> getDefaultAccounts() {
+        return defaultAccounts;
+    }
+
+    static String normalize(String host) {
+        return host.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
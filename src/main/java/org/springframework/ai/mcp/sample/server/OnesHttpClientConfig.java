@@ -0,0 +1,408 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+/**
+ * HTTP transport configuration for calls to the ONES platform.
+ * By default a pooled Apache HttpClient 5 connection manager is used so that
+ * connections (and their TLS sessions) are reused across tool calls. Setting
+ * {@code ones.http.http2-enabled=true} switches to the JDK {@link HttpClient},
+ * which multiplexes concurrent requests over a single HTTP/2 connection per host;
+ * the pool settings do not apply to it, and its idle timeout is set with the
+ * {@code jdk.httpclient.keepalive.timeout} JVM flag.
+ * Both transports advertise {@code Accept-Encoding} and decompress responses as
+ * a stream into the JSON parser unless {@code ones.http.compression-enabled=false}.
+ * Connect, read and whole-call timeouts keep a hung ONES socket from pinning a
+ * tool call thread.
+ */
+@Configuration
+public class OnesHttpClientConfig {
+
+    private static final ScheduledExecutorService CALL_TIMEOUT_SCHEDULER = createCallTimeoutScheduler();
+
+    /**
+     * Tunables for the ONES HTTP transport, bound from {@code ones.http.*}.
+     *
+     * @param http2Enabled          use the JDK client with HTTP/2 instead of the pooled HTTP/1.1 client
+     * @param maxConnectionsPerHost maximum pooled connections to a single ONES host (HTTP/1.1 only)
+     * @param maxConnectionsTotal   maximum pooled connections across all hosts (HTTP/1.1 only)
+     * @param idleEviction          idle time after which pooled connections are closed (HTTP/1.1 only)
+     * @param keepAlive             longest a connection is kept alive for reuse; a shorter
+     *                              {@code Keep-Alive: timeout} of the server wins (HTTP/1.1 only)
+     * @param compressionEnabled    request compressed responses and decompress them while parsing
+     * @param connectTimeout        time allowed to establish a connection, also bounds waiting for a pooled one
+     * @param readTimeout           maximum time without data while waiting for or reading a response
+     * @param callTimeout           maximum time for a whole request, including reading the response body
+     */
+    public record HttpTransportSettings(boolean http2Enabled, int maxConnectionsPerHost, int maxConnectionsTotal,
+            Duration idleEviction, Duration keepAlive, boolean compressionEnabled, Duration connectTimeout,
+            Duration readTimeout, Duration callTimeout) {
+
+        public static HttpTransportSettings defaults() {
+            return new HttpTransportSettings(false, 20, 50, Duration.ofSeconds(30), Duration.ofSeconds(60), true,
+                    Duration.ofSeconds(5), Duration.ofSeconds(15), Duration.ofSeconds(20));
+        }
+    }
+
+    @Bean
+    public HttpTransportSettings onesHttpTransportSettings(
+            @Value("${ones.http.http2-enabled:false}") boolean http2Enabled,
+            @Value("${ones.http.max-connections-per-host:20}") int maxConnectionsPerHost,
+            @Value("${ones.http.max-connections-total:50}") int maxConnectionsTotal,
+            @Value("${ones.http.idle-eviction:30s}") Duration idleEviction,
+            @Value("${ones.http.keep-alive:60s}") Duration keepAlive,
+            @Value("${ones.http.compression-enabled:true}") boolean compressionEnabled,
+            @Value("${ones.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${ones.http.read-timeout:15s}") Duration readTimeout,
+            @Value("${ones.http.call-timeout:20s}") Duration callTimeout) {
+        return new HttpTransportSettings(http2Enabled, maxConnectionsPerHost, maxConnectionsTotal,
+                idleEviction, keepAlive, compressionEnabled, connectTimeout, readTimeout, callTimeout);
+    }
+
+    private static ScheduledExecutorService createCallTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ones-call-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    @Bean
+    public TransferStats onesTransferStats() {
+        return new TransferStats();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory onesClientHttpRequestFactory(HttpTransportSettings onesHttpTransportSettings,
+            TransferStats onesTransferStats) {
+        return createRequestFactory(onesHttpTransportSettings, onesTransferStats);
+    }
+
+    /**
+     * Creates the request factory described by the given settings.
+     *
+     * @param settings      transport settings
+     * @param transferStats receives response byte counts
+     * @return a pooled HTTP/1.1 or an HTTP/2 capable request factory
+     */
+    public static ClientHttpRequestFactory createRequestFactory(HttpTransportSettings settings,
+            TransferStats transferStats) {
+        if (settings.http2Enabled()) {
+            return createHttp2RequestFactory(settings, transferStats);
+        }
+        return createPooledRequestFactory(settings, transferStats);
+    }
+
+    private static ClientHttpRequestFactory createPooledRequestFactory(HttpTransportSettings settings,
+            TransferStats transferStats) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(settings.maxConnectionsPerHost())
+                .setMaxConnTotal(settings.maxConnectionsTotal())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(settings.connectTimeout().toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(settings.readTimeout().toMillis()))
+                        .build())
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(settings.connectTimeout().toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(settings.readTimeout().toMillis()))
+                        // Used by the keep-alive strategy when the server announces no timeout
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(settings.keepAlive().toMillis()))
+                        .build())
+                .setKeepAliveStrategy(keepAliveStrategy(settings.keepAlive()))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(settings.idleEviction().toMillis()))
+                .addExecInterceptorFirst("ones-call-timeout", callTimeoutHandler(settings.callTimeout()));
+
+        if (settings.compressionEnabled()) {
+            // Inside the decompression step the entity is still compressed, outside it is decoded
+            builder.addExecInterceptorAfter(ChainElement.COMPRESS.name(), "ones-wire-bytes",
+                    countingHandler(transferStats::countWire, transferStats));
+            builder.addExecInterceptorBefore(ChainElement.COMPRESS.name(), "ones-decoded-bytes",
+                    countingHandler(transferStats::countDecoded, null));
+        } else {
+            builder.disableContentCompression();
+            builder.addExecInterceptorFirst("ones-bytes",
+                    countingHandler(body -> transferStats.countDecoded(transferStats.countWire(body)), null));
+        }
+
+        return new HttpComponentsClientHttpRequestFactory(builder.build());
+    }
+
+    /**
+     * Keeps a connection alive for as long as the server announces in its
+     * {@code Keep-Alive: timeout} header, but no longer than the configured
+     * maximum, which also applies when the server announces nothing. Reusing a
+     * connection the server has already closed would fail the request.
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(Duration maximum) {
+        TimeValue max = TimeValue.ofMilliseconds(maximum.toMillis());
+        return (response, context) -> {
+            TimeValue announced = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return announced != null && TimeValue.isNonNegative(announced) && announced.compareTo(max) < 0
+                    ? announced
+                    : max;
+        };
+    }
+
+    /**
+     * Aborts a request that is still running, body included, once the call timeout
+     * has passed or when its {@link RequestCancellation} is cancelled. The socket
+     * read timeout alone would let a slowly trickling response run on
+     * indefinitely, and blocking reads ignore interrupts. Under a
+     * {@link Deadline} the call, pool and response timeouts end with it.
+     */
+    private static ExecChainHandler callTimeoutHandler(Duration callTimeout) {
+        return (request, scope, chain) -> {
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                Timeout remaining = Timeout.of(Deadline.capNanos(Long.MAX_VALUE), TimeUnit.NANOSECONDS);
+                RequestConfig config = scope.clientContext.getRequestConfig();
+                scope.clientContext.setRequestConfig(RequestConfig.copy(config)
+                        .setConnectionRequestTimeout(min(config.getConnectionRequestTimeout(), remaining))
+                        .setResponseTimeout(min(config.getResponseTimeout(), remaining))
+                        .build());
+            }
+            // Discarding the endpoint closes the connection, which fails a blocked read
+            // and frees its place in the pool
+            ScheduledFuture<?> timer = CALL_TIMEOUT_SCHEDULER.schedule(scope.execRuntime::discardEndpoint,
+                    Deadline.capNanos(callTimeout.toNanos()), TimeUnit.NANOSECONDS);
+            Runnable unregister = RequestCancellation.register(scope.execRuntime::discardEndpoint);
+            Runnable finished = () -> {
+                timer.cancel(false);
+                unregister.run();
+            };
+            ClassicHttpResponse response;
+            try {
+                response = chain.proceed(request, scope);
+            } catch (IOException | HttpException | RuntimeException e) {
+                finished.run();
+                throw e;
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                finished.run();
+                return response;
+            }
+            response.setEntity(new HttpEntityWrapper(entity) {
+                @Override
+                public InputStream getContent() throws IOException {
+                    return new FilterInputStream(entity.getContent()) {
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                super.close();
+                            } finally {
+                                finished.run();
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        entity.close();
+                    } finally {
+                        finished.run();
+                    }
+                }
+            });
+            return response;
+        };
+    }
+
+    private static Timeout min(Timeout configured, Timeout remaining) {
+        return configured == null || configured.isDisabled() || configured.compareTo(remaining) > 0
+                ? remaining
+                : configured;
+    }
+
+    private static ExecChainHandler countingHandler(UnaryOperator<InputStream> counter,
+            TransferStats compressionCounter) {
+        return (request, scope, chain) -> {
+            ClassicHttpResponse response = chain.proceed(request, scope);
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                if (compressionCounter != null && entity.getContentEncoding() != null) {
+                    compressionCounter.recordCompressedResponse();
+                }
+                response.setEntity(new HttpEntityWrapper(entity) {
+                    @Override
+                    public InputStream getContent() throws IOException {
+                        return counter.apply(entity.getContent());
+                    }
+                });
+            }
+            return response;
+        };
+    }
+
+    private static ClientHttpRequestFactory createHttp2RequestFactory(HttpTransportSettings settings,
+            TransferStats transferStats) {
+        // The JDK client keeps one multiplexed connection per host and reads its idle
+        // timeout only from the JVM-wide jdk.httpclient.keepalive.timeout flag
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(settings.connectTimeout())
+                .build();
+
+        // The JDK client has no idle read timeout; its request timeout bounds the whole exchange
+        JdkClientHttpRequestFactory callTimeoutFactory = new JdkClientHttpRequestFactory(httpClient);
+        callTimeoutFactory.setReadTimeout(settings.callTimeout());
+        long callTimeoutNanos = settings.callTimeout().toNanos();
+        ClientHttpRequestFactory requestFactory = (uri, httpMethod) -> {
+            // Under a deadline with less time left, the request times out with the deadline
+            long timeoutNanos = Deadline.capNanos(callTimeoutNanos);
+            if (timeoutNanos >= callTimeoutNanos) {
+                return callTimeoutFactory.createRequest(uri, httpMethod);
+            }
+            JdkClientHttpRequestFactory deadlineFactory = new JdkClientHttpRequestFactory(httpClient);
+            deadlineFactory.setReadTimeout(Duration.ofNanos(timeoutNanos));
+            return deadlineFactory.createRequest(uri, httpMethod);
+        };
+
+        // The JDK client does not decompress by itself
+        return new InterceptingClientHttpRequestFactory(requestFactory,
+                List.of(new GzipDecodingInterceptor(settings.compressionEnabled(), transferStats)));
+    }
+
+    /**
+     * Advertises gzip and decompresses gzip responses as a stream, for transports
+     * without built-in content decoding.
+     */
+    static class GzipDecodingInterceptor implements ClientHttpRequestInterceptor {
+
+        private final boolean compressionEnabled;
+        private final TransferStats transferStats;
+
+        GzipDecodingInterceptor(boolean compressionEnabled, TransferStats transferStats) {
+            this.compressionEnabled = compressionEnabled;
+            this.transferStats = transferStats;
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            if (compressionEnabled) {
+                request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            }
+            ClientHttpResponse response = execution.execute(request, body);
+            boolean gzip = "gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            if (gzip) {
+                transferStats.recordCompressedResponse();
+            }
+            return new DecodingResponse(response, gzip, transferStats);
+        }
+    }
+
+    private static class DecodingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final boolean gzip;
+        private final TransferStats transferStats;
+        private final HttpHeaders headers;
+
+        DecodingResponse(ClientHttpResponse delegate, boolean gzip, TransferStats transferStats) {
+            this.delegate = delegate;
+            this.gzip = gzip;
+            this.transferStats = transferStats;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(delegate.getHeaders());
+            if (gzip) {
+                // The body handed on is decoded, so the encoding headers no longer apply
+                this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+                this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+            }
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            InputStream wire = transferStats.countWire(delegate.getBody());
+            return transferStats.countDecoded(gzip ? new GZIPInputStream(wire) : wire);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * ONES Wiki tools for the MCP ASYNC server type. The calls go through the same
+ * pipeline as the blocking tools of {@link OnesWikiService} (caches, request
+ * coalescing, sessions, account pools, concurrency limits, circuit breakers,
+ * retries and deadlines). That pipeline does blocking I/O, so each page is
+ * fetched directly on a thread of a bounded scheduler of
+ * {@code ones.async.threads} threads, which it holds while waiting on ONES; the
+ * server's event loop never waits, and a burst of tool calls queues up instead
+ * of starting unbounded threads.
+ */
+@Service
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+public class OnesWikiAsyncService implements DisposableBean {
+
+    private final OnesWikiService onesWikiService;
+    private final Scheduler scheduler;
+
+    public OnesWikiAsyncService(OnesWikiService onesWikiService,
+            @Value("${ones.async.threads:32}") int threads) {
+        this.onesWikiService = onesWikiService;
+        this.scheduler = Schedulers.newBoundedElastic(Math.max(1, threads),
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "ones-async", 60, true);
+    }
+
+    /**
+     * Retrieves wiki page content and converts it to AI-friendly format without
+     * blocking the calling thread.
+     *
+     * @param wikiUrl Wiki page URL
+     * @return Formatted Wiki content, or a failure message
+     */
+    public Mono<String> getWikiContent(String wikiUrl) {
+        return Mono.defer(() -> page(wikiUrl, onesWikiService.newDeadline()));
+    }
+
+    /**
+     * Retrieves several wiki pages concurrently, at most
+     * {@code ones.batch.max-concurrency} at a time, keeping input order. The
+     * pages share the deadline of the call.
+     *
+     * @param wikiUrls Wiki page URLs
+     * @return Formatted Wiki content of every page
+     */
+    public Mono<String> getWikiContents(List<String> wikiUrls) {
+        if (wikiUrls == null || wikiUrls.isEmpty()) {
+            return Mono.just("No Wiki URLs provided");
+        }
+        return Mono.defer(() -> {
+            Deadline deadline = onesWikiService.newDeadline();
+            return Flux.fromIterable(wikiUrls)
+                    .flatMapSequential(wikiUrl -> page(wikiUrl, deadline), onesWikiService.getBatchMaxConcurrency())
+                    .collectList()
+                    .map(contents -> OnesWikiService.formatBatchResults(wikiUrls, contents));
+        });
+    }
+
+    /**
+     * Fetches one page on a scheduler thread. The result is not waited for past
+     * the deadline; a fetch still running then stops at its next stage.
+     */
+    private Mono<String> page(String wikiUrl, Deadline deadline) {
+        return Mono.fromCallable(() -> onesWikiService.getWikiContent(wikiUrl, deadline))
+                .subscribeOn(scheduler)
+                .timeout(Duration.ofNanos(Math.max(1, deadline.remainingNanos())),
+                        Mono.fromSupplier(() -> OnesWikiService.timedOut(deadline)));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.publisher.Mono;
+
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the non-blocking ONES Wiki tools when the MCP server runs with
+ * {@code spring.ai.mcp.server.type=ASYNC}.
+ * Tool names, descriptions and input schemas are taken from the {@code @Tool}
+ * methods of {@link OnesWikiService}; only the handlers are replaced with the
+ * {@link OnesWikiAsyncService} ones.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+public class OnesWikiAsyncToolConfig {
+
+    @Bean
+    public List<McpServerFeatures.AsyncToolSpecification> onesWikiAsyncTools(OnesWikiService onesWikiService,
+            OnesWikiAsyncService onesWikiAsyncService) {
+        Map<String, Function<Map<String, Object>, Mono<String>>> handlers = Map.of(
+                "getWikiContent", arguments -> onesWikiAsyncService.getWikiContent((String) arguments.get("wikiUrl")),
+                "getWikiContents", arguments -> onesWikiAsyncService.getWikiContents(toStringList(arguments.get("wikiUrls"))));
+
+        ToolCallback[] toolCallbacks = MethodToolCallbackProvider.builder()
+                .toolObjects(onesWikiService)
+                .build()
+                .getToolCallbacks();
+
+        List<McpServerFeatures.AsyncToolSpecification> specifications = new ArrayList<>();
+        for (ToolCallback toolCallback : toolCallbacks) {
+            Function<Map<String, Object>, Mono<String>> handler = handlers.get(toolCallback.getToolDefinition().name());
+            if (handler == null) {
+                continue;
+            }
+            McpSchema.Tool tool = McpToolUtils.toAsyncToolSpecification(toolCallback).tool();
+            specifications.add(McpServerFeatures.AsyncToolSpecification.builder()
+                    .tool(tool)
+                    .callHandler((exchange, request) -> handler.apply(request.arguments())
+                            .map(text -> new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(text)), false)))
+                    .build());
+        }
+        return specifications;
+    }
+
+    /**
+     * The diagnostics tool does no I/O, so it is registered as a regular tool.
+     */
+    @Bean
+    public ToolCallbackProvider onesWikiDiagnosticsTools(OnesWikiDiagnostics onesWikiDiagnostics) {
+        return MethodToolCallbackProvider.builder()
+                .toolObjects(onesWikiDiagnostics)
+                .build();
+    }
+
+    private static List<String> toStringList(Object value) {
+        List<String> result = new ArrayList<>();
+        if (value instanceof List<?> list) {
+            list.forEach(item -> result.add(String.valueOf(item)));
+        }
+        return result;
+    }
+}
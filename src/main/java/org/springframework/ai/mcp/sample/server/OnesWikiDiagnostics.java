@@ -0,0 +1,278 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Exposes runtime state of the ONES Wiki service for inspection.
+ * The server runs without a web stack, so diagnostics are published as an MCP tool.
+ */
+@Service
+public class OnesWikiDiagnostics {
+
+    private final OnesWikiService onesWikiService;
+    private final EndpointRoutingTable endpointRoutingTable;
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+    private final ContentRevalidationStore revalidationStore;
+    private final TransferStats transferStats;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final RetryExecutor retryExecutor;
+    private final StartupPrewarmer startupPrewarmer;
+    private final AuthSessionManager authSessions;
+    private final SessionTokenStore sessionTokenStore;
+    private final ServiceAccountPools accountPools;
+    private final RenderedPageCache pageCache;
+    private final RawContentCache rawCache;
+    private final DiskPageStore diskStore;
+    private final CacheWarmer cacheWarmer;
+
+    public OnesWikiDiagnostics(OnesWikiService onesWikiService, EndpointRoutingTable endpointRoutingTable,
+            HedgedRequestExecutor hedgedRequestExecutor, ContentRevalidationStore revalidationStore,
+            TransferStats transferStats, ConcurrencyLimiters concurrencyLimiters,
+            CircuitBreakerRegistry circuitBreakers, RetryExecutor retryExecutor, StartupPrewarmer startupPrewarmer,
+            AuthSessionManager authSessions, SessionTokenStore sessionTokenStore, ServiceAccountPools accountPools,
+            RenderedPageCache pageCache, RawContentCache rawCache, DiskPageStore diskStore,
+            CacheWarmer cacheWarmer) {
+        this.onesWikiService = onesWikiService;
+        this.endpointRoutingTable = endpointRoutingTable;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.revalidationStore = revalidationStore;
+        this.transferStats = transferStats;
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.circuitBreakers = circuitBreakers;
+        this.retryExecutor = retryExecutor;
+        this.startupPrewarmer = startupPrewarmer;
+        this.authSessions = authSessions;
+        this.sessionTokenStore = sessionTokenStore;
+        this.accountPools = accountPools;
+        this.pageCache = pageCache;
+        this.rawCache = rawCache;
+        this.diskStore = diskStore;
+        this.cacheWarmer = cacheWarmer;
+    }
+
+    /**
+     * Reports the learned endpoint routing and request statistics.
+     *
+     * @return diagnostics in plain text
+     */
+    @Tool(description = "Show ONES Wiki server diagnostics: learned content endpoint routing per team and request statistics")
+    public String getWikiServiceDiagnostics() {
+        StringBuilder result = new StringBuilder();
+
+        result.append("=== Endpoint routing ===\n");
+        Map<String, EndpointRoutingTable.RouteStats> routes = endpointRoutingTable.snapshot();
+        if (!endpointRoutingTable.isEnabled()) {
+            result.append("disabled\n");
+        } else if (routes.isEmpty()) {
+            result.append("No routes learned yet\n");
+        }
+        routes.forEach((teamKey, stats) -> result.append(teamKey)
+                .append(": preferred=").append(stats.preferred())
+                .append(", online_page/content ok=").append(stats.onlinePageSuccesses())
+                .append(" failed=").append(stats.onlinePageFailures())
+                .append(", page ok=").append(stats.pageSuccesses())
+                .append(" failed=").append(stats.pageFailures())
+                .append("\n"));
+
+        result.append("\n=== Hedging ===\n");
+        result.append("enabled=").append(hedgedRequestExecutor.isEnabled())
+                .append(", fired=").append(hedgedRequestExecutor.getHedgesFired())
+                .append(", won=").append(hedgedRequestExecutor.getHedgesWon())
+                .append(", primary p95=").append(hedgedRequestExecutor.getPrimaryP95Millis()).append(" ms\n");
+
+        SingleFlight<String, String> contentRequests = onesWikiService.getContentRequests();
+        result.append("\n=== Request coalescing ===\n");
+        result.append("executed=").append(contentRequests.getExecutions())
+                .append(", coalesced=").append(contentRequests.getCoalesced())
+                .append(", in flight=").append(contentRequests.getInFlight()).append("\n");
+
+        result.append("\n=== Conditional revalidation ===\n");
+        result.append("enabled=").append(revalidationStore.isEnabled())
+                .append(", stored pages=").append(revalidationStore.size())
+                .append(", not modified=").append(revalidationStore.getNotModified())
+                .append(", rendered=").append(revalidationStore.getRendered()).append("\n");
+
+        result.append("\n=== Page cache ===\n");
+        appendCacheStats(result, "rendered", pageCache);
+        appendCacheStats(result, "raw", rawCache);
+        result.append("rendered again from raw=").append(onesWikiService.getRawRenders())
+                .append(", too large for raw=").append(rawCache.getOversized())
+                .append(", served stale=").append(onesWikiService.getStaleServed())
+                .append(", background refreshes=").append(onesWikiService.getBackgroundRefreshes())
+                .append(", refreshing=").append(onesWikiService.getRefreshing()).append("\n");
+
+        result.append("\n=== Disk cache ===\n");
+        if (!diskStore.isEnabled()) {
+            result.append("disabled\n");
+        } else if (!diskStore.isIndexed()) {
+            result.append(diskStore.getFailures() == 0 ? "building the index"
+                    : "unavailable, failures=" + diskStore.getFailures()).append("\n");
+        } else {
+            result.append("role=").append(diskStore.isWriting() ? "writer" : "reader")
+                    .append(", segments=").append(diskStore.getSegments())
+                    .append(", pages=").append(diskStore.getEntries())
+                    .append(", bytes=").append(diskStore.getStoredBytes())
+                    .append(", hits=").append(diskStore.getHits())
+                    .append(", misses=").append(diskStore.getMisses())
+                    .append(", writes=").append(diskStore.getWrites())
+                    .append(", rejected writes=").append(diskStore.getRejectedWrites())
+                    .append(", checksum failures=").append(diskStore.getChecksumFailures())
+                    .append(", compactions=").append(diskStore.getCompactions())
+                    .append(", failures=").append(diskStore.getFailures()).append("\n");
+        }
+
+        result.append("\n=== Transfer ===\n");
+        result.append("wire bytes=").append(transferStats.getWireBytes())
+                .append(", decoded bytes=").append(transferStats.getDecodedBytes())
+                .append(", compressed responses=").append(transferStats.getCompressedResponses())
+                .append(", content p50=").append(transferStats.getContentLatencyMillis(0.50)).append(" ms")
+                .append(", p99=").append(transferStats.getContentLatencyMillis(0.99)).append(" ms\n");
+
+        result.append("\n=== Concurrency limiter ===\n");
+        Map<String, AdaptiveConcurrencyLimiter> limiters = concurrencyLimiters.snapshot();
+        if (!concurrencyLimiters.isEnabled()) {
+            result.append("disabled\n");
+        } else if (limiters.isEmpty()) {
+            result.append("No hosts used yet\n");
+        }
+        limiters.forEach((limitedHost, limiter) -> result.append(limitedHost)
+                .append(String.format(": limit=%.1f", limiter.getLimit()))
+                .append(", in flight=").append(limiter.getInFlight())
+                .append(", queue depth=").append(limiter.getQueueDepth())
+                .append(", acquired=").append(limiter.getAcquired())
+                .append(", rejected=").append(limiter.getRejected()).append("\n"));
+
+        result.append("\n=== Circuit breakers ===\n");
+        Map<String, CircuitBreakerRegistry.BreakerStats> breakers = circuitBreakers.snapshot();
+        if (!circuitBreakers.isEnabled()) {
+            result.append("disabled\n");
+        } else if (breakers.isEmpty()) {
+            result.append("No calls made yet\n");
+        }
+        breakers.forEach((name, stats) -> result.append(name)
+                .append(": state=").append(stats.state())
+                .append(", consecutive failures=").append(stats.consecutiveFailures())
+                .append(", rejected=").append(stats.rejected())
+                .append("\n"));
+
+        result.append("\n=== Retries ===\n");
+        result.append("enabled=").append(retryExecutor.isEnabled())
+                .append(String.format(", budget tokens=%.1f", retryExecutor.getBudgetTokens()))
+                .append(", budget exhausted=").append(retryExecutor.getBudgetExhausted())
+                .append(", Retry-After honoured=").append(retryExecutor.getRetryAfterHonoured()).append("\n");
+        int attempts = Math.min(retryExecutor.getMaxAttempts(), RetryExecutor.TRACKED_ATTEMPTS);
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            result.append("attempt ").append(attempt)
+                    .append(": made=").append(retryExecutor.getAttempts(attempt))
+                    .append(", succeeded=").append(retryExecutor.getSuccesses(attempt)).append("\n");
+        }
+
+        result.append("\n=== Hosts ===\n");
+        if (onesWikiService.getResolvedHosts().isEmpty()) {
+            result.append("No hosts used yet\n");
+        }
+        RestClient defaultClient = onesWikiService.getDefaultRestClient();
+        onesWikiService.getResolvedHosts().forEach(onesHost -> result.append(onesHost.profile().host())
+                .append(": account=").append(onesHost.profile().email())
+                .append(", own connection pool=").append(onesHost.restClient() != defaultClient)
+                .append("\n"));
+
+        result.append("\n=== Service accounts ===\n");
+        Map<String, ServiceAccountPools.AccountStats> accounts = accountPools.snapshot();
+        if (accounts.isEmpty()) {
+            result.append("No hosts used yet\n");
+        }
+        accounts.forEach((name, stats) -> result.append(name)
+                .append(": in flight=").append(stats.inFlight())
+                .append(", requests=").append(stats.requests())
+                .append(", last minute=").append(stats.lastMinute())
+                .append(", throttled=").append(stats.throttled())
+                .append(", login failures=").append(stats.loginFailures())
+                .append(", ejections=").append(stats.ejections())
+                .append(stats.ejectedForMillis() > 0 ? ", ejected for " + stats.ejectedForMillis() + " ms" : "")
+                .append("\n"));
+
+        result.append("\n=== Authentication ===\n");
+        result.append("active sessions=").append(authSessions.getActiveSessions())
+                .append(", logins=").append(authSessions.getSuccessfulLogins())
+                .append(", failed=").append(authSessions.getFailedLogins())
+                .append(", coalesced=").append(authSessions.getCoalescedLogins())
+                .append(", proactive refreshes=").append(authSessions.getProactiveRefreshes())
+                .append(", rejected=").append(authSessions.getRejections())
+                .append(", re-logins=").append(authSessions.getReauthentications())
+                .append(", replayed=").append(authSessions.getReplays())
+                .append(", forbidden without re-login=").append(authSessions.getForbiddenSkips()).append("\n");
+        result.append("session cache enabled=").append(sessionTokenStore.isEnabled())
+                .append(", restored=").append(sessionTokenStore.getRestored())
+                .append(", saved=").append(sessionTokenStore.getSaved())
+                .append(", failures=").append(sessionTokenStore.getFailures()).append("\n");
+        if (sessionTokenStore.getError() != null) {
+            result.append(sessionTokenStore.getError()).append("\n");
+        }
+
+        result.append("\n=== Startup prewarm ===\n");
+        List<StartupPrewarmer.StageResult> stages = startupPrewarmer.getResults();
+        if (!startupPrewarmer.isEnabled()) {
+            result.append("disabled\n");
+        } else if (stages.isEmpty()) {
+            result.append("Not run yet\n");
+        }
+        stages.forEach(stage -> result.append(stage.stage())
+                .append(": ").append(stage.millis()).append(" ms")
+                .append(stage.error() == null ? "" : ", failed: " + stage.error())
+                .append("\n"));
+
+        result.append("\n=== Cache warm-up ===\n");
+        CacheWarmer.Progress progress = cacheWarmer.getProgress();
+        if (!cacheWarmer.isEnabled()) {
+            result.append("disabled\n");
+        } else if (progress == null) {
+            result.append("Not run yet\n");
+        } else {
+            result.append(progress.finished() ? "Finished" : "Running")
+                    .append(": ").append(progress.completed()).append("/").append(progress.total()).append(" pages")
+                    .append(", cached=").append(progress.cached())
+                    .append(", failed=").append(progress.failed())
+                    .append(", ").append(progress.millis()).append(" ms\n");
+        }
+        if (cacheWarmer.getError() != null) {
+            result.append(cacheWarmer.getError()).append("\n");
+        }
+
+        return result.toString().trim();
+    }
+
+    private static void appendCacheStats(StringBuilder result, String tier, PageCache cache) {
+        PageCache.CacheStats stats = cache.stats();
+        result.append(tier).append(": enabled=").append(cache.isEnabled())
+                .append(", pages=").append(stats.entries())
+                .append(", bytes=").append(stats.weightedBytes()).append("/").append(stats.maxBytes())
+                .append(cache.getCompressor() != null ? ", uncompressed bytes=" + stats.textBytes() : "")
+                .append(", hits=").append(stats.hits())
+                .append(", misses=").append(stats.misses())
+                .append(", evictions=").append(stats.evictions())
+                .append(", rejected=").append(stats.rejections())
+                .append(", expired=").append(stats.expirations()).append("\n");
+    }
+}
@@ -15,26 +15,75 @@
  */
 package org.springframework.ai.mcp.sample.server;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.ai.mcp.sample.server.RenderedContentConverter.RenderedContent;
+import org.springframework.ai.mcp.sample.server.WikiPageRef.ContentEndpoint;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
 import org.jsoup.select.Elements;
 
 /**
@@ -43,7 +92,17 @@ import org.jsoup.select.Elements;
  * to make wiki content more suitable for AI model consumption.
  */
 @Service
-public class OnesWikiService {
+public class OnesWikiService implements DisposableBean {
+
+    /**
+     * Browser-like headers sent with every request to ONES.
+     */
+    static final Map<String, String> DEFAULT_HEADERS = createDefaultHeaders();
+
+    private static final ObjectMapper BLOCK_MAPPER = new ObjectMapper();
+
+    /** Render options of the text output, see {@link #renderedKey(WikiPageRef)}. */
+    private static final String TEXT_RENDERING = "text";
 
     @Value("${ones.host}")
     private String host;
@@ -54,27 +113,272 @@ public class OnesWikiService {
     @Value("${ones.password}")
     private String password;
 
-    private String token;
-    private String userUuid;
+    @Value("${ones.batch.max-concurrency:8}")
+    private int batchMaxConcurrency;
+
+    @Value("${ones.tool-call-timeout:30s}")
+    private Duration toolCallTimeout = Duration.ofSeconds(30);
+
+    @Value("${ones.page-cache.ttl:5m}")
+    private Duration pageFreshFor = Duration.ofMinutes(5);
+
+    @Value("${ones.page-cache.max-stale:1h}")
+    private Duration pageMaxStale = Duration.ofHours(1);
+
     private final RestClient restClient;
+    private final TransferStats transferStats;
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+    private final EndpointRoutingTable endpointRoutingTable;
+    private final ContentRevalidationStore revalidationStore;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final RetryExecutor retryExecutor;
+    private final AuthSessionManager authSessions;
+    private final OnesHostProfiles hostProfiles;
+    private final ServiceAccountPools accountPools;
+    private final PageCache pageCache;
+    private final PageCache rawCache;
+    private final DiskPageStore diskStore;
+    private final AccessHistory accessHistory;
+    private final AtomicLong rawRenders = new AtomicLong();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong backgroundRefreshes = new AtomicLong();
+    private final OnesHttpClientConfig.HttpTransportSettings transportSettings;
+    private final ConcurrentMap<String, OnesHost> hosts = new ConcurrentHashMap<>();
+    private final SingleFlight<String, String> contentRequests = new SingleFlight<>();
+    private final ExecutorService batchExecutor;
 
     public OnesWikiService() {
-        this.restClient = RestClient.builder()
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .defaultHeader(HttpHeaders.ACCEPT, "application/json, text/plain, */*")
-                .defaultHeader("accept-language", "en")
-                .defaultHeader("sec-ch-ua",
-                        "\"Google Chrome\";v=\"135\", \"Not-A.Brand\";v=\"8\", \"Chromium\";v=\"135\"")
-                .defaultHeader("sec-ch-ua-mobile", "?0")
-                .defaultHeader("sec-ch-ua-platform", "\"macOS\"")
-                .defaultHeader("sec-fetch-dest", "empty")
-                .defaultHeader("sec-fetch-mode", "cors")
-                .defaultHeader("sec-fetch-site", "same-origin")
-                .defaultHeader("user-agent",
-                        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/135.0.0.0 Safari/537.36")
+        this(new TransferStats());
+    }
+
+    private OnesWikiService(TransferStats transferStats) {
+        this(OnesHttpClientConfig.HttpTransportSettings.defaults(), transferStats);
+    }
+
+    private OnesWikiService(OnesHttpClientConfig.HttpTransportSettings transportSettings,
+            TransferStats transferStats) {
+        this(OnesHttpClientConfig.createRequestFactory(transportSettings, transferStats), transportSettings,
+                transferStats,
+                new HedgedRequestExecutor(false, Duration.ofMillis(500), true),
+                new EndpointRoutingTable(true, 2, Duration.ofMinutes(10)),
+                new ContentRevalidationStore(true, 256),
+                new ConcurrencyLimiters(true, 10, 1, 50, 100, Duration.ofSeconds(5), Duration.ofSeconds(3), 0.7),
+                new CircuitBreakerRegistry(true, 5, Duration.ofSeconds(30)),
+                new RetryExecutor(true, 3, Duration.ofMillis(200), Duration.ofSeconds(2), Duration.ofSeconds(5), 10,
+                        0.1),
+                new AuthSessionManager(Duration.ofHours(12), Duration.ofMinutes(30), Duration.ofSeconds(10),
+                        new SessionTokenStore(false, Path.of(System.getProperty("user.home"), ".ones-mcp", "sessions"),
+                                "", "")),
+                new OnesHostProfiles(Map.of()),
+                new ServiceAccountPools(Duration.ofSeconds(30), Duration.ofMinutes(5)),
+                new RenderedPageCache(true, DataSize.ofMegabytes(64), Duration.ofMinutes(5), Duration.ofMinutes(30),
+                        Duration.ofHours(1), "none", 1),
+                new RawContentCache(true, DataSize.ofMegabytes(64), DataSize.ofMegabytes(1), Duration.ofMinutes(5),
+                        Duration.ofMinutes(30), Duration.ofHours(1), "none", 1),
+                new DiskPageStore(false, Path.of(System.getProperty("user.home"), ".ones-mcp", "pages"),
+                        DataSize.ofMegabytes(32), DataSize.ofMegabytes(512), Duration.ofHours(1),
+                        Duration.ofMinutes(10)),
+                new AccessHistory(false, Path.of(System.getProperty("user.home"), ".ones-mcp", "access-history.tsv"),
+                        1000),
+                32);
+    }
+
+    @Autowired
+    public OnesWikiService(ClientHttpRequestFactory onesClientHttpRequestFactory,
+            OnesHttpClientConfig.HttpTransportSettings onesHttpTransportSettings, TransferStats transferStats,
+            HedgedRequestExecutor hedgedRequestExecutor, EndpointRoutingTable endpointRoutingTable,
+            ContentRevalidationStore revalidationStore, ConcurrencyLimiters concurrencyLimiters,
+            CircuitBreakerRegistry circuitBreakers, RetryExecutor retryExecutor, AuthSessionManager authSessions,
+            OnesHostProfiles hostProfiles, ServiceAccountPools accountPools, RenderedPageCache pageCache,
+            RawContentCache rawCache, DiskPageStore diskStore, AccessHistory accessHistory,
+            @Value("${ones.fetch.max-threads:32}") int fetchThreads) {
+        this.transportSettings = onesHttpTransportSettings;
+        this.transferStats = transferStats;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.endpointRoutingTable = endpointRoutingTable;
+        this.revalidationStore = revalidationStore;
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.circuitBreakers = circuitBreakers;
+        this.retryExecutor = retryExecutor;
+        this.authSessions = authSessions;
+        this.hostProfiles = hostProfiles;
+        this.accountPools = accountPools;
+        this.pageCache = pageCache;
+        this.rawCache = rawCache;
+        this.diskStore = diskStore;
+        this.accessHistory = accessHistory;
+        // Fetches of all tool calls share these threads; further pages queue up and
+        // give up once their deadline has passed
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(fetchThreads, fetchThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ones-batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.batchExecutor = executor;
+        this.restClient = createRestClient(onesClientHttpRequestFactory);
+    }
+
+    private RestClient createRestClient(ClientHttpRequestFactory requestFactory) {
+        return RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeaders(headers -> DEFAULT_HEADERS.forEach(headers::set))
+                .messageConverters(converters -> converters.add(0, new RenderedContentConverter(this::decodeContent)))
                 .build();
     }
 
+    /**
+     * A ONES host with the accounts and HTTP client used for it.
+     *
+     * @param profile    accounts used on the host
+     * @param restClient client whose connection pool serves only this host
+     * @param accounts   pool that spreads requests over the accounts
+     * @param limiter    concurrency limit of the host
+     */
+    record OnesHost(OnesHostProfiles.HostProfile profile, RestClient restClient,
+            ServiceAccountPools.AccountPool accounts, AdaptiveConcurrencyLimiter limiter) {
+    }
+
+    /**
+     * Resolves the host of a wiki URL. {@code ones.host} uses the shared client;
+     * each host from {@code ones.hosts.*} gets a connection pool of its own, so a
+     * slow host cannot hold the connections the others need.
+     * 
+     * @param pageHost host name from a wiki URL
+     * @return the host, or null if no credentials are configured for it
+     */
+    OnesHost resolveHost(String pageHost) {
+        String key = OnesHostProfiles.normalize(pageHost);
+        OnesHost resolved = hosts.get(key);
+        return resolved != null ? resolved : hosts.computeIfAbsent(key, this::createHost);
+    }
+
+    private OnesHost createHost(String key) {
+        if (host != null && key.equals(OnesHostProfiles.normalize(host))) {
+            OnesHostProfiles.HostProfile profile = new OnesHostProfiles.HostProfile(host, email, password,
+                    hostProfiles.getDefaultAccounts());
+            return new OnesHost(profile, restClient, accountPools.create(host, profile.allAccounts()),
+                    concurrencyLimiters.get(host));
+        }
+        OnesHostProfiles.HostProfile profile = hostProfiles.get(key);
+        if (profile == null) {
+            return null;
+        }
+        return new OnesHost(profile,
+                createRestClient(OnesHttpClientConfig.createRequestFactory(transportSettings, transferStats)),
+                accountPools.create(profile.host(), profile.allAccounts()), concurrencyLimiters.get(profile.host()));
+    }
+
+    /**
+     * @return the client of {@code ones.host}
+     */
+    RestClient getDefaultRestClient() {
+        return restClient;
+    }
+
+    /**
+     * @return hosts resolved so far
+     */
+    Collection<OnesHost> getResolvedHosts() {
+        return hosts.values();
+    }
+
+    private static Map<String, String> createDefaultHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        headers.put(HttpHeaders.ACCEPT, "application/json, text/plain, */*");
+        headers.put("accept-language", "en");
+        headers.put("sec-ch-ua", "\"Google Chrome\";v=\"135\", \"Not-A.Brand\";v=\"8\", \"Chromium\";v=\"135\"");
+        headers.put("sec-ch-ua-mobile", "?0");
+        headers.put("sec-ch-ua-platform", "\"macOS\"");
+        headers.put("sec-fetch-dest", "empty");
+        headers.put("sec-fetch-mode", "cors");
+        headers.put("sec-fetch-site", "same-origin");
+        headers.put("user-agent",
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/135.0.0.0 Safari/537.36");
+        return Collections.unmodifiableMap(headers);
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * Logs in every account of {@code ones.host} that has no session yet.
+     * 
+     * @return true if all accounts have a session
+     */
+    boolean ensureLoggedIn() {
+        OnesHost onesHost = resolveHost(host);
+        boolean loggedIn = true;
+        for (OnesHostProfiles.Account account : onesHost.accounts().getAccounts()) {
+            loggedIn &= credentials(onesHost, account) != null;
+        }
+        return loggedIn;
+    }
+
+    /**
+     * Returns the credentials of an account, logging in if needed.
+     * 
+     * @param onesHost the host
+     * @param account  one of the host's accounts
+     * @return the credentials, or null if the login failed
+     * @throws CircuitBreakerRegistry.CircuitOpenException if the login breaker is open
+     */
+    private AuthSessionManager.Credentials credentials(OnesHost onesHost, OnesHostProfiles.Account account) {
+        return authSessions.getCredentials(onesHost.profile().sessionKey(account), () -> login(onesHost, account));
+    }
+
+    /**
+     * Sends a request to the wiki front page whatever it answers, to get a pooled
+     * connection (and its TLS session) established ahead of the first tool call.
+     */
+    void openConnection() {
+        restClient.get()
+                .uri(String.format("https://%s/wiki/", host))
+                .retrieve()
+                .onStatus(status -> true, (request, response) -> {
+                    // Any answer means the connection is up
+                })
+                .toBodilessEntity();
+    }
+
+    /**
+     * @return coalescing statistics of concurrent {@link #getWikiContent} calls
+     */
+    SingleFlight<String, String> getContentRequests() {
+        return contentRequests;
+    }
+
+    /**
+     * @return pages rendered again from the raw content cache
+     */
+    long getRawRenders() {
+        return rawRenders.get();
+    }
+
+    /**
+     * @return pages served stale while a refresh ran in the background
+     */
+    long getStaleServed() {
+        return staleServed.get();
+    }
+
+    long getBackgroundRefreshes() {
+        return backgroundRefreshes.get();
+    }
+
+    /**
+     * @return pages being refreshed in the background right now
+     */
+    int getRefreshing() {
+        return refreshing.size();
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record LoginRequest(@JsonProperty("email") String email, @JsonProperty("password") String password) {
     }
@@ -93,27 +397,50 @@ public class OnesWikiService {
     /**
      * Authenticates with ONES system to obtain access token.
      * 
-     * @return true if login successful, false otherwise
+     * @param onesHost the host to log in to
+     * @param account  the account to log in with
+     * @return the credentials of the new session, or null if the login failed
+     * @throws CircuitBreakerRegistry.CircuitOpenException if the login breaker is open
+     * @throws Deadline.DeadlineExceededException          if the tool call ran out of time
      */
-    private boolean login() {
+    private AuthSessionManager.Credentials login(OnesHost onesHost, OnesHostProfiles.Account account) {
+        String loginHost = onesHost.profile().host();
         try {
-            String loginUrl = String.format("https://%s/project/api/project/auth/login", host);
-            LoginRequest loginRequest = new LoginRequest(email, password);
-
-            LoginResponse response = restClient.post()
-                    .uri(loginUrl)
-                    .body(loginRequest)
-                    .retrieve()
-                    .body(LoginResponse.class);
+            String loginUrl = String.format("https://%s/project/api/project/auth/login", loginHost);
+            LoginRequest loginRequest = new LoginRequest(account.email(), account.password());
+
+            // The limiter is outside the breaker, so that waiting for a permit is not a probe of ONES
+            LoginResponse response = onesHost.limiter().execute(
+                    () -> circuitBreakers.execute(loginHost, CircuitBreakerRegistry.LOGIN,
+                            () -> untilDeadline("the ONES login response", () -> onesHost.restClient().post()
+                                    .uri(loginUrl)
+                                    .body(loginRequest)
+                                    .retrieve()
+                                    .body(LoginResponse.class))));
 
             if (response != null && response.user() != null) {
-                this.token = response.user().token();
-                this.userUuid = response.user().uuid();
-                return true;
+                return new AuthSessionManager.Credentials(response.user().uuid(), response.user().token(),
+                        Instant.now());
             }
-            return false;
+            return null;
+        } catch (CircuitBreakerRegistry.CircuitOpenException | Deadline.DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Runs a call to ONES, reporting a failure caused by timeouts capped at the
+     * bound tool call deadline as the deadline being exceeded, so that it counts
+     * neither against the endpoint nor as a retryable failure.
+     */
+    private static <T> T untilDeadline(String stage, Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (ResourceAccessException e) {
+            Deadline.rethrowIfExpired(e, stage);
+            throw e;
         }
     }
 
@@ -125,22 +452,7 @@ public class OnesWikiService {
      * @throws IllegalArgumentException if URL format is invalid
      */
     private String convertWikiUrlToApiUrl(String wikiUrl) {
-        // Pattern to match wiki URL format
-        // https://example.com/wiki/#/team/AQzvsooq/space/EYvdiwVh/page/4RwySM6h
-        Pattern pattern = Pattern.compile("https://([^/]+)/wiki/#/team/([^/]+)/space/([^/]+)/page/([^/]+)");
-        Matcher matcher = pattern.matcher(wikiUrl);
-
-        if (matcher.find()) {
-            String host = matcher.group(1);
-            String teamUuid = matcher.group(2);
-            String pageUuid = matcher.group(4);
-
-            // Convert to API endpoint
-            return String.format("https://%s/wiki/api/wiki/team/%s/online_page/%s/content",
-                    host, teamUuid, pageUuid);
-        }
-
-        throw new IllegalArgumentException("Invalid wiki URL format");
+        return WikiPageRef.parse(wikiUrl).apiUrl(ContentEndpoint.ONLINE_PAGE_CONTENT);
     }
 
     /**
@@ -151,22 +463,7 @@ public class OnesWikiService {
      * @throws IllegalArgumentException if URL format is invalid
      */
     private String convertWikiUrlToAlternativeApiUrl(String wikiUrl) {
-        // Pattern to match wiki URL format
-        // https://example.com/wiki/#/team/AQzvsooq/space/EYvdiwVh/page/4RwySM6h
-        Pattern pattern = Pattern.compile("https://([^/]+)/wiki/#/team/([^/]+)/space/([^/]+)/page/([^/]+)");
-        Matcher matcher = pattern.matcher(wikiUrl);
-
-        if (matcher.find()) {
-            String host = matcher.group(1);
-            String teamUuid = matcher.group(2);
-            String pageUuid = matcher.group(4);
-
-            // Convert to alternative API endpoint format
-            return String.format("https://%s/wiki/api/wiki/team/%s/page/%s",
-                    host, teamUuid, pageUuid);
-        }
-
-        throw new IllegalArgumentException("Invalid wiki URL format");
+        return WikiPageRef.parse(wikiUrl).apiUrl(ContentEndpoint.PAGE);
     }
 
     /**
@@ -176,7 +473,7 @@ public class OnesWikiService {
      * @param content raw content from wiki API
      * @return processed content in readable text format
      */
-    private String processHtmlContent(String content) {
+    String processHtmlContent(String content) {
         if (content == null || content.trim().isEmpty()) {
             return "Content is empty";
         }
@@ -204,20 +501,61 @@ public class OnesWikiService {
      */
     private String processWikiJsonBlocks(String jsonContent) {
         try {
-            // Parse JSON using Jackson
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            com.fasterxml.jackson.databind.JsonNode rootNode = mapper.readTree(jsonContent);
+            return processWikiJsonBlocks(new StringReader(jsonContent));
+        } catch (IOException e) {
+            return "JSON content parsing failed: " + e.getMessage();
+        }
+    }
 
-            StringBuilder result = new StringBuilder();
+    /**
+     * Processes ONES Wiki JSON blocks format while it is being read. Blocks are
+     * rendered as they arrive; only tables and code blocks, which refer to other
+     * top-level nodes by id, are kept until the end together with the nodes they
+     * need. Nodes that follow the blocks array are dropped unless referenced.
+     * 
+     * @param jsonContent JSON content from wiki API
+     * @return processed text content
+     * @throws IOException if reading the content fails
+     */
+    private String processWikiJsonBlocks(Reader jsonContent) throws IOException {
+        try (JsonParser parser = BLOCK_MAPPER.createParser(jsonContent)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return "No valid content extracted";
+            }
 
-            // Get blocks array
-            com.fasterxml.jackson.databind.JsonNode blocksNode = rootNode.get("blocks");
-            if (blocksNode != null && blocksNode.isArray()) {
-                for (com.fasterxml.jackson.databind.JsonNode block : blocksNode) {
-                    String blockContent = processWikiBlock(block, rootNode);
-                    if (!blockContent.isEmpty()) {
-                        result.append(blockContent).append("\n");
+            ObjectNode referencedNodes = BLOCK_MAPPER.createObjectNode();
+            Set<String> wantedIds = new HashSet<>();
+            List<Object> parts = new ArrayList<>();
+            boolean blocksSeen = false;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("blocks".equals(field) && value == JsonToken.START_ARRAY && !blocksSeen) {
+                    blocksSeen = true;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JsonNode block = BLOCK_MAPPER.readTree(parser);
+                        String type = block.path("type").asText();
+                        if ("table".equals(type) || "code".equals(type)) {
+                            block.path("children").forEach(child -> wantedIds.add(child.asText()));
+                            parts.add(block);
+                        } else {
+                            parts.add(processWikiBlock(block, referencedNodes));
+                        }
                     }
+                } else if (!blocksSeen || wantedIds.contains(field)) {
+                    referencedNodes.set(field, BLOCK_MAPPER.readTree(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            StringBuilder result = new StringBuilder();
+            for (Object part : parts) {
+                String blockContent = part instanceof JsonNode block ? processWikiBlock(block, referencedNodes)
+                        : (String) part;
+                if (!blockContent.isEmpty()) {
+                    result.append(blockContent).append("\n");
                 }
             }
 
@@ -225,11 +563,70 @@ public class OnesWikiService {
 
             return finalResult.isEmpty() ? "No valid content extracted" : finalResult;
 
-        } catch (Exception e) {
+        } catch (JsonProcessingException | RuntimeException e) {
             return "JSON content parsing failed: " + e.getMessage();
         }
     }
 
+    /**
+     * Decodes a content API response and renders the page in a single pass over
+     * the response stream, without holding the raw body or the content string.
+     * The raw content is only kept for the raw tier and the disk store, and only
+     * up to {@code ones.page-cache.raw.max-page-size}.
+     * 
+     * @param body response body of a content API endpoint
+     * @return the rendered page
+     * @throws IOException if reading the response fails
+     */
+    RenderedContent decodeContent(InputStream body) throws IOException {
+        ContentEnvelopeReader.ContentReader content = new ContentEnvelopeReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8)).openContent();
+        if (content == null) {
+            body.transferTo(OutputStream.nullOutputStream());
+            return new RenderedContent(null, null, false);
+        }
+        boolean capturing = rawCache.isEnabled() || diskStore.isEnabled();
+        if (capturing) {
+            content.capture(rawCache.getMaxPageChars());
+        }
+
+        String rendered = renderContent(content);
+        if (capturing) {
+            // Read what the renderer left over so the raw copy is complete
+            content.transferTo(Writer.nullWriter());
+        }
+        // Drain the rest of the envelope so the connection can be reused
+        body.transferTo(OutputStream.nullOutputStream());
+        if (content.isCaptureTruncated()) {
+            rawCache.recordOversized();
+        }
+        return new RenderedContent(rendered, content.captured(), content.isCaptureTruncated());
+    }
+
+    /**
+     * Streaming counterpart of {@link #processHtmlContent(String)}.
+     */
+    private String renderContent(Reader content) throws IOException {
+        PushbackReader reader = new PushbackReader(content, 1);
+        int first;
+        do {
+            first = reader.read();
+        } while (first != -1 && Character.isWhitespace(first));
+        if (first == -1) {
+            return "Content is empty";
+        }
+        reader.unread(first);
+
+        if (first == '{') {
+            return processWikiJsonBlocks(reader);
+        }
+        try {
+            return renderHtmlDocument(Parser.htmlParser().parseInput(reader, ""));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     /**
      * Processes a single wiki block.
      * 
@@ -458,9 +855,14 @@ public class OnesWikiService {
             return "Content is empty";
         }
 
-        try {
-            Document doc = Jsoup.parse(htmlContent);
+        return renderHtmlDocument(Jsoup.parse(htmlContent));
+    }
 
+    /**
+     * Converts a parsed HTML document to text.
+     */
+    private String renderHtmlDocument(Document doc) {
+        try {
             // Remove content marked with delete line
             doc.select("s, strike, del").remove();
 
@@ -587,6 +989,128 @@ public class OnesWikiService {
         }
     }
 
+    /**
+     * Result of one content request.
+     * 
+     * @param content      the content rendered while it was read, null when not modified
+     * @param endpoint     the endpoint that answered
+     * @param etag         {@code ETag} response header, may be null
+     * @param lastModified {@code Last-Modified} response header, may be null
+     * @param notModified  the validators confirmed by a {@code 304}, otherwise null
+     */
+    record FetchedContent(RenderedContent content, ContentEndpoint endpoint, String etag,
+            String lastModified, ContentRevalidationStore.StoredPage notModified) {
+    }
+
+    /**
+     * Fetches raw page content from one of the content endpoints and records the
+     * outcome in the endpoint routing table. A request rejected for its session
+     * ({@code 401}/{@code 403}) is sent once more after logging in again.
+     * 
+     * @param page        the wiki page
+     * @param onesHost    the host of the page
+     * @param lease       the account the request is made with
+     * @param endpoint    the content endpoint to call
+     * @param conditional whether a cached render can be reused on {@code 304}, so
+     *                    that validators may be sent
+     * @param credentials session credentials sent with the request
+     * @param deadline    deadline of the tool call
+     * @return the fetched content
+     */
+    private FetchedContent fetchContent(WikiPageRef page, OnesHost onesHost, ServiceAccountPools.Lease lease,
+            ContentEndpoint endpoint, boolean conditional, AuthSessionManager.Credentials credentials,
+            Deadline deadline) {
+        String apiUrl = page.apiUrl(endpoint);
+        ContentRevalidationStore.StoredPage stored = conditional
+                ? revalidationStore.getValidators(page.pageKey(), endpoint)
+                : null;
+        try {
+            FetchedContent fetched;
+            try {
+                fetched = fetchContent(onesHost, lease, apiUrl, endpoint, stored, credentials, deadline);
+            } catch (HttpStatusCodeException e) {
+                if (!UpstreamErrors.isAuthFailure(e)) {
+                    throw e;
+                }
+                String sessionKey = onesHost.profile().sessionKey(lease.account());
+                boolean forbidden = e.getStatusCode().value() == HttpStatus.FORBIDDEN.value();
+                AuthSessionManager.Credentials renewed = authSessions.refresh(sessionKey, credentials,
+                        forbidden ? page.pageKey() : null, () -> login(onesHost, lease.account()));
+                if (renewed == null) {
+                    throw e;
+                }
+                try {
+                    fetched = fetchContent(onesHost, lease, apiUrl, endpoint, stored, renewed, deadline);
+                } catch (HttpStatusCodeException replayFailure) {
+                    if (replayFailure.getStatusCode().value() == HttpStatus.FORBIDDEN.value()) {
+                        // Not the session: the account may not read the page
+                        authSessions.recordForbidden(sessionKey, page.pageKey());
+                    }
+                    throw replayFailure;
+                }
+                authSessions.recordReplay();
+            }
+            endpointRoutingTable.recordSuccess(page.teamKey(), endpoint);
+            return fetched;
+        } catch (RuntimeException e) {
+            // A hedged request cancelled by the winner, or one out of time, says nothing about the endpoint,
+            // and neither does a rejected session or a page that does not exist
+            if (!Thread.currentThread().isInterrupted() && !(e instanceof Deadline.DeadlineExceededException)
+                    && UpstreamErrors.isEndpointFailure(e)) {
+                endpointRoutingTable.recordFailure(page.teamKey(), endpoint);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches raw page content from a wiki content API endpoint, as a conditional
+     * request when validators of a previous response are known. The request is a
+     * plain GET, so transient failures are retried.
+     * 
+     * @param onesHost    the host serving the endpoint
+     * @param lease       the account the request is made with, told about throttling
+     * @param apiUrl      content API endpoint URL
+     * @param endpoint    the content endpoint being called
+     * @param stored      previously stored page whose validators are sent, may be null
+     * @param credentials session credentials sent with the request
+     * @param deadline    deadline of the tool call, checked before every attempt
+     * @return the fetched content
+     */
+    private FetchedContent fetchContent(OnesHost onesHost, ServiceAccountPools.Lease lease, String apiUrl,
+            ContentEndpoint endpoint, ContentRevalidationStore.StoredPage stored,
+            AuthSessionManager.Credentials credentials, Deadline deadline) {
+        long start = System.nanoTime();
+        ResponseEntity<RenderedContent> entity = retryExecutor.execute(() -> {
+            deadline.check("fetching from " + endpoint);
+            return reportThrottling(lease, () -> onesHost.limiter().execute(
+                    () -> circuitBreakers.execute(onesHost.profile().host(), endpoint.name(),
+                            () -> untilDeadline("the " + endpoint + " response", () -> onesHost.restClient().get()
+                                    .uri(apiUrl)
+                                    .header("Referer", String.format("https://%s/wiki/", onesHost.profile().host()))
+                                    .header("Cookie", String.format(
+                                            "language=en; ones-uid=%s; ones-lt=%s; timezone=Asia/Shanghai",
+                                            credentials.userUuid(), credentials.token()))
+                                    .headers(headers -> {
+                                        if (stored != null && stored.etag() != null) {
+                                            headers.setIfNoneMatch(stored.etag());
+                                        }
+                                        if (stored != null && stored.lastModified() != null) {
+                                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, stored.lastModified());
+                                        }
+                                    })
+                                    .retrieve()
+                                    .toEntity(RenderedContent.class)))));
+        }, deadline);
+        transferStats.recordContentLatency(System.nanoTime() - start);
+
+        if (stored != null && entity.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            return new FetchedContent(null, endpoint, stored.etag(), stored.lastModified(), stored);
+        }
+        return new FetchedContent(entity.getBody(), endpoint, entity.getHeaders().getETag(),
+                entity.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED), null);
+    }
+
     /**
      * Retrieves wiki page content and converts it to AI-friendly format
      * 
@@ -598,60 +1122,463 @@ public class OnesWikiService {
     public String getWikiContent(
             @ToolParam(description = "Wiki page URL, format like: https://example.com/wiki/#/team/AQzvsooq/space/EYvdiwVh/page/4RwySM6h") String wikiUrl) {
 
+        // Concurrent calls for the same page share one fetch and render. The caller
+        // waits no longer than the tool call deadline; a fetch still running past it
+        // stops at its next stage or when its HTTP call times out.
+        Deadline deadline = Deadline.after(toolCallTimeout);
+        try {
+            return content(wikiUrl, page -> {
+                Future<String> result = batchExecutor.submit(() -> fetch(page, deadline));
+                try {
+                    return await(result, deadline);
+                } catch (InterruptedException e) {
+                    result.cancel(true);
+                    Thread.currentThread().interrupt();
+                    return "Failed to get Wiki content: interrupted";
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return "Failed to get Wiki content: the server is shutting down";
+        }
+    }
+
+    /**
+     * Serves a page like {@link #getWikiContent(String)}, but fetches it on the
+     * calling thread instead of one of the fetch pool, for callers that already
+     * run on a bounded pool of their own.
+     * 
+     * @param wikiUrl  the wiki page URL
+     * @param deadline deadline of the tool call, see {@link #newDeadline()}
+     * @return Formatted Wiki content, or a failure message
+     */
+    String getWikiContent(String wikiUrl, Deadline deadline) {
+        return deadline.isExpired() ? timedOut(deadline) : content(wikiUrl, page -> fetch(page, deadline));
+    }
+
+    /**
+     * @return a deadline of {@code ones.tool-call-timeout} starting now
+     */
+    Deadline newDeadline() {
+        return Deadline.after(toolCallTimeout);
+    }
+
+    int getBatchMaxConcurrency() {
+        return Math.max(1, batchMaxConcurrency);
+    }
+
+    /**
+     * Serves a page from the caches, or else from the given fetch.
+     * 
+     * @param wikiUrl the wiki page URL
+     * @param fetch   fetches and renders the page if it is not cached or too stale
+     * @return Formatted Wiki content, or a failure message
+     */
+    private String content(String wikiUrl, Function<WikiPageRef, String> fetch) {
+        WikiPageRef page;
+        try {
+            page = WikiPageRef.parse(wikiUrl);
+        } catch (IllegalArgumentException e) {
+            return "URL format error: " + e.getMessage();
+        }
+        accessHistory.record(page, wikiUrl);
+
+        // Fresh pages are served as they are; stale ones too, up to ones.page-cache.max-stale,
+        // while a refresh runs in the background. Older ones are fetched before answering.
+        PageCache.CachedValue cached = cachedRender(page);
+        if (cached != null) {
+            long age = System.nanoTime() - cached.storedAt();
+            if (age < pageFreshFor.toNanos()) {
+                return cached.value();
+            }
+            if (age < pageMaxStale.toNanos()) {
+                staleServed.incrementAndGet();
+                refreshInBackground(page);
+                return String.format("[Served from cache: fetched %s ago, refreshing in the background]%n%n",
+                        formatAge(Duration.ofNanos(age))) + cached.value();
+            }
+        }
+
+        return fetch.apply(page);
+    }
+
+    /**
+     * Fetches and renders a page on the calling thread. Concurrent calls for the
+     * same page share one fetch.
+     */
+    private String fetch(WikiPageRef page, Deadline deadline) {
+        return contentRequests.execute(page.pageKey(), () -> loadWikiContent(page, deadline));
+    }
+
+    /**
+     * Waits for a page until the deadline.
+     * 
+     * @return Formatted Wiki content, or a failure message
+     */
+    private static String await(Future<String> result, Deadline deadline) throws InterruptedException {
+        try {
+            return result.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return timedOut(deadline);
+        } catch (ExecutionException e) {
+            return "Failed to get Wiki content: " + e.getCause().getMessage();
+        }
+    }
+
+    static String timedOut(Deadline deadline) {
+        return String.format("Timed out after %d ms retrieving Wiki content", deadline.budget().toMillis());
+    }
+
+    /**
+     * Runs one attempt of a request, ejecting its account from the pool if ONES
+     * throttles it.
+     */
+    private static <T> T reportThrottling(ServiceAccountPools.Lease lease, Supplier<T> attempt) {
+        try {
+            return attempt.get();
+        } catch (HttpStatusCodeException e) {
+            if (e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                lease.recordThrottled();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches and renders a wiki page with the least-loaded healthy account of its host.
+     * 
+     * @param page     the wiki page
+     * @param deadline deadline of the tool call, shared by login, both fetches and rendering
+     * @return Formatted Wiki content, or a failure message
+     */
+    private String loadWikiContent(WikiPageRef page, Deadline deadline) {
+        OnesHost onesHost = resolveHost(page.host());
+        if (onesHost == null) {
+            return "No ONES credentials configured for host " + page.host();
+        }
+        try (ServiceAccountPools.Lease lease = onesHost.accounts().acquire()) {
+            // Bound, so limiter waits and HTTP timeouts end with the deadline
+            return deadline.call(() -> loadWikiContent(page, onesHost, lease, deadline));
+        }
+    }
+
+    /**
+     * Fetches and renders a wiki page with one account of its host.
+     * 
+     * @param page     the wiki page
+     * @param onesHost the host of the page
+     * @param lease    the account to use
+     * @param deadline deadline of the tool call, shared by login, both fetches and rendering
+     * @return Formatted Wiki content, or a failure message
+     */
+    private String loadWikiContent(WikiPageRef page, OnesHost onesHost, ServiceAccountPools.Lease lease,
+            Deadline deadline) {
         try {
             // Ensure logged in
-            if (token == null && !login()) {
+            deadline.check("login");
+            AuthSessionManager.Credentials credentials = credentials(onesHost, lease.account());
+            if (credentials == null) {
+                lease.recordLoginFailure();
                 return "Login failed, unable to get Wiki content";
             }
 
-            // First try the main API endpoint
+            // The render a 304 confirms comes from the page cache tiers; without one the
+            // request is not made conditional
+            PageCache.CachedValue cached = cachedRender(page);
+            boolean conditional = cached != null;
+
+            // Try the endpoint learned for this team first, falling back to (or hedging with) the other one
+            ContentEndpoint first = endpointRoutingTable.firstEndpoint(page.teamKey());
+            HedgedRequestExecutor.HedgedResult<FetchedContent> result;
             try {
-                String apiUrl = convertWikiUrlToApiUrl(wikiUrl);
-
-                WikiContentResponse response = restClient.get()
-                        .uri(apiUrl)
-                        .header("Referer", String.format("https://%s/wiki/", host))
-                        .header("Cookie", String.format("language=en; ones-uid=%s; ones-lt=%s; timezone=Asia/Shanghai",
-                                userUuid, token))
-                        .retrieve()
-                        .body(WikiContentResponse.class);
-
-                if (response != null && response.content() != null) {
-                    String processedContent = processHtmlContent(response.content());
-                    return processedContent;
+                result = hedgedRequestExecutor.execute(
+                        () -> deadline.call(
+                                () -> fetchContent(page, onesHost, lease, first, conditional, credentials, deadline)),
+                        () -> deadline.call(() -> fetchContent(page, onesHost, lease, first.other(), conditional,
+                                credentials, deadline)));
+            } catch (HedgedRequestExecutor.BothFailedException e) {
+                if (e.getAlternativeFailure() instanceof Deadline.DeadlineExceededException) {
+                    return "Timed out: " + e.getAlternativeFailure().getMessage();
                 }
-            } catch (Exception primaryException) {
-                // If primary API fails, try alternative API endpoint
-                try {
-                    String alternativeApiUrl = convertWikiUrlToAlternativeApiUrl(wikiUrl);
-
-                    WikiContentResponse response = restClient.get()
-                            .uri(alternativeApiUrl)
-                            .header("Referer", String.format("https://%s/wiki/", host))
-                            .header("Cookie",
-                                    String.format("language=en; ones-uid=%s; ones-lt=%s; timezone=Asia/Shanghai",
-                                            userUuid, token))
-                            .retrieve()
-                            .body(WikiContentResponse.class);
-
-                    if (response != null && response.content() != null) {
-                        String processedContent = processHtmlContent(response.content());
-                        return processedContent;
-                    } else {
-                        return "No Wiki content retrieved from alternative API";
+                if (e.getPrimaryFailure() instanceof CircuitBreakerRegistry.CircuitOpenException
+                        || e.getAlternativeFailure() instanceof CircuitBreakerRegistry.CircuitOpenException) {
+                    String localCopy = localCopy(page);
+                    if (localCopy != null) {
+                        return localCopy;
                     }
-                } catch (Exception alternativeException) {
-                    return String.format("Both primary and alternative APIs failed. Primary: %s, Alternative: %s",
-                            primaryException.getMessage(), alternativeException.getMessage());
                 }
+                return String.format("Both primary and alternative APIs failed. Primary: %s, Alternative: %s",
+                        e.getPrimaryFailure().getMessage(), e.getAlternativeFailure().getMessage());
             }
 
-            return "No Wiki content retrieved";
+            FetchedContent fetched = result.value();
+            if (fetched.notModified() != null) {
+                revalidationStore.recordNotModified();
+                // Confirmed current: every tier counts its copy as fetched now
+                PageCache.CachedValue raw = rawCache.getEntry(page.pageKey());
+                if (raw != null) {
+                    rawCache.put(page.pageKey(), raw.value());
+                }
+                diskStore.touch(page.pageKey());
+                return cache(page, cached.value());
+            }
+
+            // The page was rendered while the response was read
+            RenderedContent content = fetched.content();
+            if (content != null && content.rendered() != null) {
+                if (content.oversized()) {
+                    // Earlier copies no longer match the page, and validators without a raw copy
+                    // would let a 304 confirm one of them
+                    rawCache.remove(page.pageKey());
+                    diskStore.remove(page.pageKey());
+                    revalidationStore.remove(page.pageKey());
+                } else {
+                    rawCache.put(page.pageKey(), content.raw());
+                    diskStore.put(page.pageKey(), content.raw());
+                    revalidationStore.store(page.pageKey(), fetched.endpoint(), fetched.etag(),
+                            fetched.lastModified());
+                }
+                return cache(page, content.rendered());
+            }
 
+            return result.alternative() ? "No Wiki content retrieved from alternative API"
+                    : "No Wiki content retrieved";
+
+        } catch (CircuitBreakerRegistry.CircuitOpenException e) {
+            String localCopy = localCopy(page);
+            return localCopy != null ? localCopy : "Login failed, unable to get Wiki content: " + e.getMessage();
+        } catch (Deadline.DeadlineExceededException e) {
+            return "Timed out: " + e.getMessage();
         } catch (IllegalArgumentException e) {
             return "URL format error: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Failed to get Wiki content: interrupted";
         } catch (Exception e) {
             return "Failed to get Wiki content: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Looks a page up in the rendered tier, then in the raw tier and the disk
+     * store, rendering the raw content again if only that is cached.
+     * 
+     * @param page the wiki page
+     * @return the rendered page and when it was fetched, or null if no tier has it
+     */
+    private PageCache.CachedValue cachedRender(WikiPageRef page) {
+        String key = renderedKey(page);
+        PageCache.CachedValue cached = pageCache.getEntry(key);
+        if (cached != null) {
+            return cached;
+        }
+        PageCache.CachedValue raw = rawCache.getEntry(page.pageKey());
+        if (raw == null) {
+            raw = restore(page);
+        }
+        if (raw == null) {
+            return null;
+        }
+        String rendered;
+        try {
+            rendered = renderContent(new StringReader(raw.value()));
+        } catch (IOException e) {
+            return null;
+        }
+        rawRenders.incrementAndGet();
+        // Expires together with the raw content it was rendered from
+        pageCache.put(key, rendered, raw.storedAt());
+        return new PageCache.CachedValue(rendered, raw.storedAt());
+    }
+
+    /**
+     * Fetches a page again in the background, unless that is already under way.
+     * A failed refresh leaves the cached page in place.
+     * 
+     * @param page the wiki page
+     */
+    private void refreshInBackground(WikiPageRef page) {
+        if (!refreshing.add(page.pageKey())) {
+            return;
+        }
+        backgroundRefreshes.incrementAndGet();
+        Deadline deadline = Deadline.after(toolCallTimeout);
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    // Shares the fetch with any synchronous call for the same page
+                    fetch(page, deadline);
+                } finally {
+                    refreshing.remove(page.pageKey());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(page.pageKey());
+        }
+    }
+
+    /**
+     * Brings a page into the caches on the calling thread, for warming them up
+     * before it is asked for. A fresh cached page is left as it is; the request
+     * is not counted in the access history.
+     * 
+     * @param wikiUrl the wiki page URL
+     * @return true if the page is cached afterwards
+     * @throws IllegalArgumentException if the URL is not a wiki page URL
+     */
+    boolean warm(String wikiUrl) {
+        WikiPageRef page = WikiPageRef.parse(wikiUrl);
+        PageCache.CachedValue cached = cachedRender(page);
+        if (cached != null && System.nanoTime() - cached.storedAt() < pageFreshFor.toNanos()) {
+            return true;
+        }
+        fetch(page, Deadline.after(toolCallTimeout));
+        return cachedRender(page) != null;
+    }
+
+    static String formatAge(Duration age) {
+        if (age.toMinutes() == 0) {
+            return age.toSeconds() + " s";
+        }
+        if (age.toHours() == 0) {
+            return age.toMinutes() + " min";
+        }
+        return age.toHours() + " h " + age.toMinutesPart() + " min";
+    }
+
+    /**
+     * Reads the raw content of a page back from the disk store into the raw tier,
+     * e.g. in a process started since the page was fetched. It keeps the age it
+     * has on disk, so it is refreshed like any other cached page.
+     * 
+     * @param page the wiki page
+     * @return the raw content, or null if the disk store has none
+     */
+    private PageCache.CachedValue restore(WikiPageRef page) {
+        DiskPageStore.StoredContent stored = diskStore.get(page.pageKey());
+        if (stored == null) {
+            return null;
+        }
+        Duration age = Duration.between(stored.fetchedAt(), Instant.now());
+        long storedAt = System.nanoTime() - Math.max(0, age.toNanos());
+        rawCache.put(page.pageKey(), stored.value(), storedAt);
+        return new PageCache.CachedValue(stored.value(), storedAt);
+    }
+
+    /**
+     * Keeps a fresh render in the page cache. Failure messages and local copies are
+     * never cached, so the next call tries ONES again.
+     */
+    private String cache(WikiPageRef page, String rendered) {
+        pageCache.put(renderedKey(page), rendered);
+        return rendered;
+    }
+
+    /**
+     * Key of a page's render in the rendered tier. It includes the render options,
+     * currently always plain text, so that renders with other options are cached
+     * side by side over the same raw content.
+     */
+    static String renderedKey(WikiPageRef page) {
+        return page.pageKey() + "|" + TEXT_RENDERING;
+    }
+
+    /**
+     * Returns the render of a page still held by the page cache tiers, marked as a
+     * local copy, for use while a circuit breaker is open.
+     * 
+     * @param page the wiki page
+     * @return the marked local copy, or null if no tier has the page
+     */
+    private String localCopy(WikiPageRef page) {
+        PageCache.CachedValue cached = cachedRender(page);
+        if (cached == null) {
+            return null;
+        }
+        return String.format("[Served from local copy: ONES is unavailable (circuit breaker open), fetched %s ago]"
+                + "%n%n", formatAge(Duration.ofNanos(System.nanoTime() - cached.storedAt()))) + cached.value();
+    }
+
+    /**
+     * Retrieves several wiki pages in parallel and converts them to AI-friendly format.
+     * At most {@code ones.batch.max-concurrency} pages are fetched at the same time,
+     * each on one thread of the shared fetch pool. The whole call shares one
+     * deadline; pages not started before it passes are reported as timed out.
+     * 
+     * @param wikiUrls Wiki page URLs
+     * @return Formatted Wiki content of every page, in input order
+     */
+    @Tool(description = "Retrieve several ONES Wiki pages in parallel and convert them to AI-friendly text format. Results are returned in input order, each with its own error if the page could not be retrieved")
+    public String getWikiContents(
+            @ToolParam(description = "List of Wiki page URLs, each in the format: https://example.com/wiki/#/team/AQzvsooq/space/EYvdiwVh/page/4RwySM6h") List<String> wikiUrls) {
+
+        if (wikiUrls == null || wikiUrls.isEmpty()) {
+            return "No Wiki URLs provided";
+        }
+
+        // Started with the call, so it is always earlier than a deadline a page would
+        // get when it starts, and a long batch cannot run past the tool call deadline
+        Deadline deadline = newDeadline();
+        Semaphore permits = new Semaphore(getBatchMaxConcurrency());
+        List<Future<String>> futures = new ArrayList<>(wikiUrls.size());
+        try {
+            for (String wikiUrl : wikiUrls) {
+                if (deadline.isExpired() || !permits.tryAcquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+                try {
+                    // The whole page, cache lookup included, runs on the task's own thread
+                    futures.add(batchExecutor.submit(() -> {
+                        try {
+                            return getWikiContent(wikiUrl, deadline);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            List<String> contents = new ArrayList<>(wikiUrls.size());
+            for (Future<String> future : futures) {
+                contents.add(await(future, deadline));
+            }
+            // Pages not reached in time are not started at all
+            while (contents.size() < wikiUrls.size()) {
+                contents.add(timedOut(deadline));
+            }
+            return formatBatchResults(wikiUrls, contents);
+
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            return "Failed to get Wiki contents: the server is shutting down";
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            return "Failed to get Wiki contents: interrupted";
+        }
+    }
+
+    /**
+     * Joins per-page results of a batch call into one text, in input order.
+     * 
+     * @param wikiUrls the requested Wiki page URLs
+     * @param contents the result for each URL, at the same index
+     * @return combined batch result
+     */
+    static String formatBatchResults(List<String> wikiUrls, List<String> contents) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < wikiUrls.size(); i++) {
+            result.append("## [").append(i + 1).append("/").append(wikiUrls.size()).append("] ")
+                    .append(wikiUrls.get(i)).append("\n\n")
+                    .append(contents.get(i)).append("\n\n");
+        }
+        return result.toString().trim();
+    }
+
+    @Override
+    public void destroy() {
+        batchExecutor.shutdownNow();
+    }
+}
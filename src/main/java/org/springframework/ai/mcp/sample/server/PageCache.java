@@ -0,0 +1,442 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory cache of page text bounded by an estimate of its heap size in bytes.
+ * New entries go to a small LRU window (1% of the capacity); entries leaving the
+ * window only make it into the main LRU space if they have been asked for more
+ * often than the entry they would evict, using a TinyLFU frequency sketch. One-off
+ * pages therefore cannot flush out frequently read ones. Entries expire
+ * {@code ttl} after they were stored and {@code maxIdle} after their last read.
+ * An entry larger than the main space is never stored.
+ * <p>
+ * With a {@link PageCompressor}, entries are kept compressed, weighed by their
+ * compressed size, and decompressed when read.
+ */
+public class PageCache {
+
+    /** Rough heap cost of an entry besides its characters: map node, entry object, string headers. */
+    static final int ENTRY_OVERHEAD = 112;
+
+    /** Heap cost of a byte array besides its content. */
+    static final int ARRAY_OVERHEAD = 16;
+
+    /**
+     * Statistics of the cache.
+     *
+     * @param entries        number of entries
+     * @param weightedBytes  estimated heap size of all entries
+     * @param textBytes      what the entries would take as uncompressed strings
+     * @param maxBytes       capacity
+     * @param hits           lookups that found a live entry
+     * @param misses         lookups that did not
+     * @param evictions      entries removed to make room
+     * @param rejections     entries not admitted, or too large to store
+     * @param expirations    entries removed because of {@code ttl} or {@code maxIdle}
+     */
+    public record CacheStats(int entries, long weightedBytes, long textBytes, long maxBytes, long hits, long misses,
+            long evictions, long rejections, long expirations) {
+    }
+
+    /**
+     * A cached value with the time it was fetched.
+     *
+     * @param value    the cached text
+     * @param storedAt {@link System#nanoTime()} when the value was fetched from ONES
+     */
+    public record CachedValue(String value, long storedAt) {
+    }
+
+    private static final class Entry {
+
+        // One of the two is set
+        final String value;
+        final byte[] compressed;
+        final int length;
+        final long weight;
+        final long storedAt;
+        long lastAccess;
+
+        Entry(String value, byte[] compressed, int length, long weight, long storedAt, long now) {
+            this.value = value;
+            this.compressed = compressed;
+            this.length = length;
+            this.weight = weight;
+            this.storedAt = storedAt;
+            this.lastAccess = now;
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long windowMaxBytes;
+    private final long mainMaxBytes;
+    private final long ttlNanos;
+    private final long maxIdleNanos;
+    private final FrequencySketch sketch;
+    private final PageCompressor compressor;
+
+    // Both in access order, guarded by this
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowBytes;
+    private long mainBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+    private long expirations;
+
+    /**
+     * @param enabled  whether pages are cached at all
+     * @param maxBytes capacity in estimated heap bytes
+     * @param ttl      time after which an entry expires, zero or negative for never
+     * @param maxIdle  time without reads after which an entry expires, zero or negative for never
+     */
+    public PageCache(boolean enabled, long maxBytes, Duration ttl, Duration maxIdle) {
+        this(enabled, maxBytes, ttl, maxIdle, null);
+    }
+
+    /**
+     * @param enabled    whether pages are cached at all
+     * @param maxBytes   capacity in estimated heap bytes
+     * @param ttl        time after which an entry expires, zero or negative for never
+     * @param maxIdle    time without reads after which an entry expires, zero or negative for never
+     * @param compressor compresses the stored text, null to store it as is
+     */
+    public PageCache(boolean enabled, long maxBytes, Duration ttl, Duration maxIdle, PageCompressor compressor) {
+        this.compressor = compressor;
+        this.enabled = enabled && maxBytes > 0;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.windowMaxBytes = Math.max(1, this.maxBytes / 100);
+        this.mainMaxBytes = Math.max(0, this.maxBytes - windowMaxBytes);
+        this.ttlNanos = ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : ttl.toNanos();
+        this.maxIdleNanos = maxIdle.isZero() || maxIdle.isNegative() ? Long.MAX_VALUE : maxIdle.toNanos();
+        // Sized for the number of average pages (~16 KB) that fit, so that counts age at a sensible pace
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, this.maxBytes / 16_384)));
+    }
+
+    /**
+     * @param key cache key
+     * @return the cached text, or null if absent or expired
+     */
+    public String get(String key) {
+        CachedValue cached = getEntry(key);
+        return cached != null ? cached.value() : null;
+    }
+
+    /**
+     * @param key cache key
+     * @return the cached text and its fetch time, or null if absent or expired
+     */
+    public CachedValue getEntry(String key) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (this) {
+            sketch.increment(key);
+            entry = window.get(key);
+            boolean inWindow = entry != null;
+            if (!inWindow) {
+                entry = main.get(key);
+            }
+            if (entry != null && isExpired(entry, now)) {
+                remove(key, inWindow);
+                expirations++;
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            entry.lastAccess = now;
+            hits++;
+        }
+        // Decompressed outside the lock; the entry is immutable apart from its last access
+        String value = entry.compressed != null ? compressor.decompress(entry.compressed) : entry.value;
+        return new CachedValue(value, entry.storedAt);
+    }
+
+    /**
+     * Stores a page, subject to admission.
+     *
+     * @param key   cache key
+     * @param value page text
+     */
+    public void put(String key, String value) {
+        put(key, value, System.nanoTime());
+    }
+
+    /**
+     * Stores a value derived from one fetched earlier, e.g. a page rendered again
+     * from cached raw content, so that it expires with its source.
+     *
+     * @param key      cache key
+     * @param value    page text
+     * @param storedAt {@link System#nanoTime()} when the source was fetched
+     */
+    public void put(String key, String value, long storedAt) {
+        if (!enabled || value == null) {
+            return;
+        }
+        byte[] compressed = compressor != null ? compressor.compress(value) : null;
+        long weight = compressed != null
+                ? ENTRY_OVERHEAD + 2L * key.length() + ARRAY_OVERHEAD + compressed.length
+                : weigh(key, value);
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry previous = window.remove(key);
+            if (previous != null) {
+                windowBytes -= previous.weight;
+            }
+            Entry resident = main.remove(key);
+            if (resident != null) {
+                mainBytes -= resident.weight;
+            }
+            if (weight > mainMaxBytes) {
+                rejections++;
+                return;
+            }
+            if (resident != null) {
+                // A page already admitted to the main space stays there when it is refreshed
+                main.put(key, entry(value, compressed, weight, storedAt, now));
+                mainBytes += weight;
+                evictMain(now);
+                return;
+            }
+            window.put(key, entry(value, compressed, weight, storedAt, now));
+            windowBytes += weight;
+            while (windowBytes > windowMaxBytes && !window.isEmpty()) {
+                Map.Entry<String, Entry> eldest = window.entrySet().iterator().next();
+                window.remove(eldest.getKey());
+                windowBytes -= eldest.getValue().weight;
+                admit(eldest.getKey(), eldest.getValue(), now);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of a key, e.g. because it no longer matches the page.
+     *
+     * @param key cache key
+     */
+    public synchronized void remove(String key) {
+        remove(key, true);
+        remove(key, false);
+    }
+
+    private static Entry entry(String value, byte[] compressed, long weight, long storedAt, long now) {
+        // Only one form is kept, so that the string can be collected once compressed
+        return new Entry(compressed != null ? null : value, compressed, value.length(), weight, storedAt, now);
+    }
+
+    /**
+     * Moves an entry leaving the window into the main space if it is used more
+     * often than the entries it would evict.
+     */
+    private void admit(String key, Entry candidate, long now) {
+        if (isExpired(candidate, now)) {
+            expirations++;
+            return;
+        }
+        int candidateFrequency = sketch.frequency(key);
+        evictExpired(now);
+        // Find the victims first, so that a rejected candidate leaves the main space untouched
+        long needed = mainBytes + candidate.weight - mainMaxBytes;
+        if (needed > 0) {
+            long freed = 0;
+            Iterator<Map.Entry<String, Entry>> victims = main.entrySet().iterator();
+            while (freed < needed && victims.hasNext()) {
+                Map.Entry<String, Entry> victim = victims.next();
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    rejections++;
+                    return;
+                }
+                freed += victim.getValue().weight;
+            }
+            evictMain(now, candidate.weight);
+        }
+        main.put(key, candidate);
+        mainBytes += candidate.weight;
+    }
+
+    private void evictMain(long now) {
+        evictMain(now, 0);
+    }
+
+    private void evictMain(long now, long reserve) {
+        Iterator<Map.Entry<String, Entry>> eldest = main.entrySet().iterator();
+        while (mainBytes + reserve > mainMaxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            mainBytes -= evicted.weight;
+            if (isExpired(evicted, now)) {
+                expirations++;
+            } else {
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Drops expired entries from the least recently used end of the main space.
+     */
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> eldest = main.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            if (!isExpired(entry, now)) {
+                // Entries further on were read more recently
+                return;
+            }
+            eldest.remove();
+            mainBytes -= entry.weight;
+            expirations++;
+        }
+    }
+
+    private void remove(String key, boolean inWindow) {
+        Entry removed = inWindow ? window.remove(key) : main.remove(key);
+        if (removed != null) {
+            if (inWindow) {
+                windowBytes -= removed.weight;
+            } else {
+                mainBytes -= removed.weight;
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.storedAt >= ttlNanos || now - entry.lastAccess >= maxIdleNanos;
+    }
+
+    /**
+     * Estimates the heap size of an entry; characters are counted as two bytes.
+     */
+    static long weigh(String key, String value) {
+        return ENTRY_OVERHEAD + 2L * key.length() + 2L * value.length();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        window.clear();
+        main.clear();
+        windowBytes = 0;
+        mainBytes = 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized CacheStats stats() {
+        long textBytes = 0;
+        for (Map<String, Entry> space : List.of(window, main)) {
+            for (Map.Entry<String, Entry> entry : space.entrySet()) {
+                textBytes += ENTRY_OVERHEAD + 2L * entry.getKey().length() + 2L * entry.getValue().length;
+            }
+        }
+        return new CacheStats(window.size() + main.size(), windowBytes + mainBytes, textBytes, maxBytes, hits,
+                misses, evictions, rejections, expirations);
+    }
+
+    /**
+     * @return the compressor of the stored text, null if stored as is
+     */
+    public PageCompressor getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * Count-min sketch of 4-bit access counters, halved periodically so that
+     * past popularity fades.
+     */
+    static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = { 0x97cb3127, 0x9e3779b9, 0x2c1b3c6d, 0x7feb352d };
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+            this.counters = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the text held by a {@link PageCache}. Implementations must be
+ * thread-safe.
+ */
+public interface PageCompressor {
+
+    /**
+     * @param text page text
+     * @return the compressed form
+     */
+    byte[] compress(String text);
+
+    /**
+     * @param data output of {@link #compress(String)}
+     * @return the page text
+     */
+    String decompress(byte[] data);
+
+    /**
+     * Looks up a compressor by its {@code ones.page-cache.compression} name.
+     *
+     * @param name  {@code none} or {@code deflate}
+     * @param level compression level, 1 (fastest) to 9 (smallest)
+     * @return the compressor, or null for {@code none}
+     */
+    static PageCompressor forName(String name, int level) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "", "none" -> null;
+            case "deflate" -> new DeflateCompressor(level);
+            default -> throw new IllegalArgumentException("Unknown page cache compression: " + name);
+        };
+    }
+
+    /**
+     * Raw deflate of the UTF-8 text, prefixed with its length. Deflaters and
+     * inflaters are reused per thread, as creating them allocates native memory.
+     */
+    final class DeflateCompressor implements PageCompressor {
+
+        private final ThreadLocal<Deflater> deflaters;
+        private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+        private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+
+        DeflateCompressor(int level) {
+            int checked = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+            this.deflaters = ThreadLocal.withInitial(() -> new Deflater(checked, true));
+        }
+
+        @Override
+        public byte[] compress(String text) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            Deflater deflater = deflaters.get();
+            deflater.reset();
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 4 + 16);
+            out.write(utf8.length >>> 24);
+            out.write(utf8.length >>> 16);
+            out.write(utf8.length >>> 8);
+            out.write(utf8.length);
+            byte[] buffer = buffers.get();
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public String decompress(byte[] data) {
+            int length = (data[0] & 0xff) << 24 | (data[1] & 0xff) << 16 | (data[2] & 0xff) << 8 | (data[3] & 0xff);
+            byte[] utf8 = new byte[length];
+            Inflater inflater = inflaters.get();
+            inflater.reset();
+            inflater.setInput(data, 4, data.length - 4);
+            try {
+                int read = 0;
+                while (read < length) {
+                    int n = inflater.inflate(utf8, read, length - read);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    read += n;
+                }
+                if (read != length) {
+                    throw new DataFormatException("Truncated data");
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt compressed page", e);
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Raw page content as returned by ONES ({@code WikiContentResponse.content}), keyed
+ * by {@link WikiPageRef#pageKey()}. A page missing from the {@link RenderedPageCache}
+ * is rendered again from here without a network round trip. Sized by
+ * {@code ones.page-cache.raw.max-bytes}; entries are fresh and stale for as long
+ * as rendered pages, i.e. {@code ones.page-cache.ttl} and
+ * {@code ones.page-cache.max-stale}. Pages larger than
+ * {@code ones.page-cache.raw.max-page-size} are not kept here nor in the
+ * {@link DiskPageStore}, so that reading them does not hold a copy of their raw
+ * content besides the render.
+ */
+@Component
+public class RawContentCache extends PageCache {
+
+    private final int maxPageChars;
+    private final AtomicLong oversized = new AtomicLong();
+
+    public RawContentCache(
+            @Value("${ones.page-cache.raw.enabled:true}") boolean enabled,
+            @Value("${ones.page-cache.raw.max-bytes:64MB}") DataSize maxBytes,
+            @Value("${ones.page-cache.raw.max-page-size:1MB}") DataSize maxPageSize,
+            @Value("${ones.page-cache.ttl:5m}") Duration ttl,
+            @Value("${ones.page-cache.raw.max-idle:30m}") Duration maxIdle,
+            @Value("${ones.page-cache.max-stale:1h}") Duration maxStale,
+            @Value("${ones.page-cache.raw.compression:none}") String compression,
+            @Value("${ones.page-cache.raw.compression-level:1}") int compressionLevel) {
+        // Kept past the TTL for serving stale while a refresh runs
+        super(enabled, maxBytes.toBytes(), ttl.compareTo(maxStale) >= 0 ? ttl : maxStale, maxIdle,
+                PageCompressor.forName(compression, compressionLevel));
+        // Two bytes per char, as strings are weighed
+        this.maxPageChars = (int) Math.min(Integer.MAX_VALUE, maxPageSize.toBytes() / 2);
+    }
+
+    /**
+     * @return the most characters of raw content kept for one page
+     */
+    public int getMaxPageChars() {
+        return maxPageChars;
+    }
+
+    /**
+     * Records a page whose raw content was not kept because it is too large.
+     */
+    public void recordOversized() {
+        oversized.incrementAndGet();
+    }
+
+    /**
+     * @return pages whose raw content was too large to keep
+     */
+    public long getOversized() {
+        return oversized.get();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Reads a content API response straight into a {@link RenderedContent}, decoding
+ * and rendering the page in one pass over the response stream.
+ */
+class RenderedContentConverter extends AbstractHttpMessageConverter<RenderedContentConverter.RenderedContent> {
+
+    /**
+     * A page rendered while its response was read.
+     *
+     * @param rendered  the rendered output, null if the response had no content
+     * @param raw       the raw content, null unless it was asked for
+     * @param oversized whether the raw content was asked for but too large to keep
+     */
+    record RenderedContent(String rendered, String raw, boolean oversized) {
+    }
+
+    /**
+     * Decodes and renders a response body.
+     */
+    @FunctionalInterface
+    interface ContentDecoder {
+
+        RenderedContent decode(InputStream body) throws IOException;
+    }
+
+    private final ContentDecoder decoder;
+
+    RenderedContentConverter(ContentDecoder decoder) {
+        super(MediaType.ALL);
+        this.decoder = decoder;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RenderedContent.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RenderedContent readInternal(Class<? extends RenderedContent> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        return decoder.decode(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(RenderedContent content, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("RenderedContent is read-only");
+    }
+}
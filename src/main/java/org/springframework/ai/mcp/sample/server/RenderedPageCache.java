@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Rendered wiki pages keyed by {@link WikiPageRef#pageKey()} and the render
+ * options, served without calling ONES while younger than
+ * {@code ones.page-cache.ttl}, and up to {@code ones.page-cache.max-stale} while a
+ * refresh runs in the background. Sized by
+ * {@code ones.page-cache.max-bytes}; the raw content they were rendered from is
+ * kept separately in the {@link RawContentCache}.
+ */
+@Component
+public class RenderedPageCache extends PageCache {
+
+    public RenderedPageCache(
+            @Value("${ones.page-cache.enabled:true}") boolean enabled,
+            @Value("${ones.page-cache.max-bytes:64MB}") DataSize maxBytes,
+            @Value("${ones.page-cache.ttl:5m}") Duration ttl,
+            @Value("${ones.page-cache.max-idle:30m}") Duration maxIdle,
+            @Value("${ones.page-cache.max-stale:1h}") Duration maxStale,
+            @Value("${ones.page-cache.compression:none}") String compression,
+            @Value("${ones.page-cache.compression-level:1}") int compressionLevel) {
+        // Kept past the TTL for serving stale while a refresh runs
+        super(enabled, maxBytes.toBytes(), ttl.compareTo(maxStale) >= 0 ? ttl : maxStale, maxIdle,
+                PageCompressor.forName(compression, compressionLevel));
+    }
+}
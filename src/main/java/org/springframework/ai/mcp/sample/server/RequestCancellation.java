@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets requests running on another thread be aborted. The blocking I/O of
+ * HttpClient 5 ignores interrupts, so interrupting the thread of a request
+ * neither stops it nor returns its connection to the pool; instead the
+ * transport registers an abort action for every request made while a
+ * cancellation is {@linkplain #call(Callable) bound} to the thread.
+ */
+final class RequestCancellation {
+
+    private static final ThreadLocal<RequestCancellation> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> abortActions = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Runs a call with this cancellation bound to the calling thread.
+     *
+     * @param call the call making the requests
+     * @return the call result
+     */
+    <T> T call(Callable<T> call) throws Exception {
+        RequestCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Registers the abort action of a request starting on the calling thread. It
+     * runs right away if the bound cancellation was already cancelled.
+     *
+     * @param abort aborts the request, callable from any thread
+     * @return removes the action once the request is over
+     */
+    static Runnable register(Runnable abort) {
+        RequestCancellation cancellation = CURRENT.get();
+        if (cancellation == null) {
+            return () -> {
+            };
+        }
+        synchronized (cancellation) {
+            if (!cancellation.cancelled) {
+                cancellation.abortActions.add(abort);
+                return () -> {
+                    synchronized (cancellation) {
+                        cancellation.abortActions.remove(abort);
+                    }
+                };
+            }
+        }
+        abort.run();
+        return () -> {
+        };
+    }
+
+    /**
+     * Aborts the requests in progress and any started later.
+     */
+    void cancel() {
+        List<Runnable> actions;
+        synchronized (this) {
+            cancelled = true;
+            actions = new ArrayList<>(abortActions);
+            abortActions.clear();
+        }
+        actions.forEach(Runnable::run);
+    }
+}
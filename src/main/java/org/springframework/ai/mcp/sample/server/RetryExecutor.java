@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Retries idempotent ONES calls that failed with {@code 429}, {@code 5xx} or an
+ * I/O error. Attempts are spaced by exponential backoff with full jitter, or by
+ * the server's {@code Retry-After} when it is within {@code max-retry-after}.
+ * Retries draw from a token bucket that is refilled by {@code budget-ratio} tokens
+ * per successful call, so during an outage retries stop instead of multiplying
+ * the load on ONES.
+ */
+@Component
+public class RetryExecutor {
+
+    /** Attempts from this number on share one metrics slot. */
+    static final int TRACKED_ATTEMPTS = 8;
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long maxRetryAfterNanos;
+    private final double budgetCapacity;
+    private final double budgetRatio;
+
+    private final Object budgetLock = new Object();
+    private double budgetTokens;
+
+    private final AtomicLongArray attempts = new AtomicLongArray(TRACKED_ATTEMPTS);
+    private final AtomicLongArray successes = new AtomicLongArray(TRACKED_ATTEMPTS);
+    private final AtomicLong retryAfterHonoured = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    public RetryExecutor(
+            @Value("${ones.retry.enabled:true}") boolean enabled,
+            @Value("${ones.retry.max-attempts:3}") int maxAttempts,
+            @Value("${ones.retry.initial-backoff:200ms}") Duration initialBackoff,
+            @Value("${ones.retry.max-backoff:2s}") Duration maxBackoff,
+            @Value("${ones.retry.max-retry-after:5s}") Duration maxRetryAfter,
+            @Value("${ones.retry.budget-capacity:10}") double budgetCapacity,
+            @Value("${ones.retry.budget-ratio:0.1}") double budgetRatio) {
+        this.enabled = enabled;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.maxRetryAfterNanos = maxRetryAfter.toNanos();
+        this.budgetCapacity = budgetCapacity;
+        this.budgetRatio = budgetRatio;
+        this.budgetTokens = budgetCapacity;
+    }
+
+    /**
+     * Runs an idempotent call, retrying transient failures.
+     *
+     * @param call the upstream call
+     * @return the call result
+     */
+    public <T> T execute(Supplier<T> call) {
+        return execute(call, null);
+    }
+
+    /**
+     * Runs an idempotent call, retrying transient failures as long as the backoff
+     * fits into the remaining time of the deadline.
+     *
+     * @param call     the upstream call
+     * @param deadline deadline of the tool call, may be null
+     * @return the call result
+     */
+    <T> T execute(Supplier<T> call, Deadline deadline) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        for (int attempt = 1;; attempt++) {
+            attempts.incrementAndGet(slot(attempt));
+            try {
+                T result = call.get();
+                successes.incrementAndGet(slot(attempt));
+                deposit();
+                return result;
+            } catch (RuntimeException e) {
+                // An interrupted caller (e.g. a cancelled hedge) no longer wants the result
+                if (attempt >= maxAttempts || !UpstreamErrors.isOverloadOrUnavailable(e)
+                        || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                long delayNanos = retryDelayNanos(e, attempt);
+                if (delayNanos < 0 || (deadline != null && delayNanos >= deadline.remainingNanos())) {
+                    throw e;
+                }
+                if (!withdraw()) {
+                    budgetExhausted.incrementAndGet();
+                    throw e;
+                }
+                try {
+                    Thread.sleep(Duration.ofNanos(delayNanos).toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return nanoseconds to wait before the next attempt, or -1 if the server
+     *         asked for a longer pause than is worth waiting for
+     */
+    private long retryDelayNanos(RuntimeException e, int attempt) {
+        if (e instanceof HttpStatusCodeException statusException && statusException.getResponseHeaders() != null) {
+            long retryAfterNanos = parseRetryAfter(
+                    statusException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            if (retryAfterNanos > maxRetryAfterNanos) {
+                return -1;
+            }
+            if (retryAfterNanos >= 0) {
+                retryAfterHonoured.incrementAndGet();
+                return retryAfterNanos;
+            }
+        }
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Parses a {@code Retry-After} value given either in seconds or as an HTTP date.
+     *
+     * @param value the header value, may be null
+     * @return the delay in nanoseconds, or -1 if absent or unparseable
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim()))).toNanos();
+        } catch (NumberFormatException e) {
+            // Not delta-seconds, try an HTTP date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toNanos());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private void deposit() {
+        synchronized (budgetLock) {
+            budgetTokens = Math.min(budgetCapacity, budgetTokens + budgetRatio);
+        }
+    }
+
+    private boolean withdraw() {
+        synchronized (budgetLock) {
+            if (budgetTokens < 1) {
+                return false;
+            }
+            budgetTokens -= 1;
+            return true;
+        }
+    }
+
+    private static int slot(int attempt) {
+        return Math.min(attempt, TRACKED_ATTEMPTS) - 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt attempt number, 1 for the first call
+     * @return calls made as that attempt
+     */
+    public long getAttempts(int attempt) {
+        return attempts.get(slot(attempt));
+    }
+
+    /**
+     * @param attempt attempt number, 1 for the first call
+     * @return calls that succeeded on that attempt
+     */
+    public long getSuccesses(int attempt) {
+        return successes.get(slot(attempt));
+    }
+
+    public long getRetryAfterHonoured() {
+        return retryAfterHonoured.get();
+    }
+
+    public long getBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
+    public double getBudgetTokens() {
+        synchronized (budgetLock) {
+            return budgetTokens;
+        }
+    }
+}
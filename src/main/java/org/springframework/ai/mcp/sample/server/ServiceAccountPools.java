@@ -0,0 +1,253 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.ai.mcp.sample.server.OnesHostProfiles.Account;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spreads requests to a ONES host over its service accounts, since ONES throttles
+ * per user. Each request leases the healthy account with the fewest requests in
+ * flight. An account that is throttled ({@code 429}) or fails to log in is ejected
+ * for {@code ones.accounts.ejection}, doubling on every further ejection in a row
+ * up to {@code ones.accounts.max-ejection}; if every account is ejected, the one
+ * returning soonest is used anyway.
+ */
+@Component
+public class ServiceAccountPools {
+
+    /**
+     * Snapshot of one account.
+     *
+     * @param inFlight         requests currently using the account
+     * @param requests         requests served in total
+     * @param lastMinute       requests completed in the last full minute
+     * @param throttled        throttled responses
+     * @param loginFailures    failed logins
+     * @param ejections        times the account was ejected
+     * @param ejectedForMillis remaining ejection time, 0 if healthy
+     */
+    public record AccountStats(int inFlight, long requests, long lastMinute, long throttled, long loginFailures,
+            long ejections, long ejectedForMillis) {
+    }
+
+    private final long ejectionNanos;
+    private final long maxEjectionNanos;
+    private final List<AccountPool> pools = new CopyOnWriteArrayList<>();
+
+    public ServiceAccountPools(
+            @Value("${ones.accounts.ejection:30s}") Duration ejection,
+            @Value("${ones.accounts.max-ejection:5m}") Duration maxEjection) {
+        this.ejectionNanos = ejection.toNanos();
+        this.maxEjectionNanos = Math.max(ejectionNanos, maxEjection.toNanos());
+    }
+
+    /**
+     * Creates the account pool of a host.
+     *
+     * @param host     ONES host name
+     * @param accounts the accounts of the host, at least one
+     * @return the pool
+     */
+    public AccountPool create(String host, List<Account> accounts) {
+        AccountPool pool = new AccountPool(host, accounts);
+        pools.add(pool);
+        return pool;
+    }
+
+    /**
+     * @return statistics per account, keyed by host and email
+     */
+    public Map<String, AccountStats> snapshot() {
+        Map<String, AccountStats> snapshot = new TreeMap<>();
+        long now = System.nanoTime();
+        for (AccountPool pool : pools) {
+            for (Slot slot : pool.slots) {
+                snapshot.put(pool.host + " " + slot.account.email(), slot.stats(now));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * The accounts of one host.
+     */
+    public final class AccountPool {
+
+        private final String host;
+        private final Slot[] slots;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private AccountPool(String host, List<Account> accounts) {
+            if (accounts.isEmpty()) {
+                throw new IllegalArgumentException("No accounts for " + host);
+            }
+            this.host = host;
+            this.slots = accounts.stream().map(Slot::new).toArray(Slot[]::new);
+        }
+
+        /**
+         * Leases the least-loaded healthy account. Close the lease when the
+         * request is done.
+         *
+         * @return the lease
+         */
+        public Lease acquire() {
+            long now = System.nanoTime();
+            // Start at a rotating offset so that ties do not always go to the first account
+            int offset = Math.floorMod(next.getAndIncrement(), slots.length);
+            Slot best = null;
+            Slot soonestBack = null;
+            for (int i = 0; i < slots.length; i++) {
+                Slot slot = slots[(offset + i) % slots.length];
+                if (slot.isEjected(now)) {
+                    if (soonestBack == null || slot.ejectedUntil - soonestBack.ejectedUntil < 0) {
+                        soonestBack = slot;
+                    }
+                } else if (best == null || slot.inFlight.get() < best.inFlight.get()) {
+                    best = slot;
+                }
+            }
+            Slot chosen = best != null ? best : soonestBack;
+            chosen.inFlight.incrementAndGet();
+            chosen.requests.incrementAndGet();
+            return new Lease(chosen);
+        }
+
+        public List<Account> getAccounts() {
+            return Arrays.stream(slots).map(slot -> slot.account).toList();
+        }
+    }
+
+    /**
+     * One request's use of an account.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Slot slot;
+        private boolean throttled;
+        private boolean closed;
+
+        private Lease(Slot slot) {
+            this.slot = slot;
+        }
+
+        public Account account() {
+            return slot.account;
+        }
+
+        /**
+         * Records a throttled response and ejects the account.
+         */
+        public synchronized void recordThrottled() {
+            throttled = true;
+            slot.throttled.incrementAndGet();
+            slot.eject();
+        }
+
+        /**
+         * Records a failed login and ejects the account.
+         */
+        public synchronized void recordLoginFailure() {
+            throttled = true;
+            slot.loginFailures.incrementAndGet();
+            slot.eject();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            slot.inFlight.decrementAndGet();
+            slot.complete(!throttled);
+        }
+    }
+
+    private final class Slot {
+
+        private final Account account;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private final AtomicLong loginFailures = new AtomicLong();
+        private final AtomicLong ejections = new AtomicLong();
+        private volatile long ejectedUntil;
+        private int consecutiveEjections;
+        private long minute;
+        private long currentMinuteCount;
+        private long lastMinuteCount;
+
+        Slot(Account account) {
+            this.account = account;
+            this.ejectedUntil = System.nanoTime();
+        }
+
+        boolean isEjected(long now) {
+            return now - ejectedUntil < 0;
+        }
+
+        synchronized void eject() {
+            long now = System.nanoTime();
+            if (isEjected(now)) {
+                // Requests already in flight report the same throttling again
+                return;
+            }
+            long duration = ejectionNanos << Math.min(consecutiveEjections, 20);
+            ejectedUntil = now + Math.min(duration <= 0 ? maxEjectionNanos : duration, maxEjectionNanos);
+            consecutiveEjections++;
+            ejections.incrementAndGet();
+        }
+
+        synchronized void complete(boolean healthy) {
+            long now = System.nanoTime();
+            if (healthy && !isEjected(now)) {
+                // Served fine while not ejected: the next ejection starts from the shortest again
+                consecutiveEjections = 0;
+            }
+            rollMinute(now);
+            currentMinuteCount++;
+        }
+
+        private void rollMinute(long now) {
+            long current = TimeUnit.NANOSECONDS.toMinutes(now);
+            if (current != minute) {
+                lastMinuteCount = current == minute + 1 ? currentMinuteCount : 0;
+                currentMinuteCount = 0;
+                minute = current;
+            }
+        }
+
+        synchronized AccountStats stats(long now) {
+            rollMinute(now);
+            return new AccountStats(inFlight.get(), requests.get(), lastMinuteCount, throttled.get(),
+                    loginFailures.get(), ejections.get(),
+                    isEjected(now) ? TimeUnit.NANOSECONDS.toMillis(ejectedUntil - now) : 0);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps ONES session credentials on disk so that a new server process, such as
+ * one started per stdio client, can reuse a valid session instead of logging in.
+ * Each session is one file, named after a hash of host and email and encrypted
+ * with AES-GCM. Files are readable by the owner only; unreadable, tampered or
+ * foreign files are ignored, which simply means a fresh login.
+ * <p>
+ * The encryption only helps if the key is kept apart from the session files, so
+ * it is never generated next to them: it must be configured, either as
+ * {@code ones.auth.token-cache.key} (Base64, 256 bits, e.g. from the
+ * {@code ONES_AUTH_TOKEN_CACHE_KEY} environment variable or a secret manager) or
+ * as {@code ones.auth.token-cache.key-file} outside the session directory and
+ * readable by the owner only. Without a usable key nothing is stored.
+ */
+@Component
+public class SessionTokenStore {
+
+    private static final String SUFFIX = ".session";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final Set<PosixFilePermission> OWNER_ONLY = EnumSet.of(PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE);
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = EnumSet.of(PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final SecretKey key;
+    private final String error;
+    private final SecureRandom random = new SecureRandom();
+
+    private final AtomicLong restored = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public SessionTokenStore(
+            @Value("${ones.auth.token-cache.enabled:false}") boolean enabled,
+            @Value("${ones.auth.token-cache.directory:${user.home}/.ones-mcp/sessions}") Path directory,
+            @Value("${ones.auth.token-cache.key:}") String configuredKey,
+            @Value("${ones.auth.token-cache.key-file:}") String keyFile) {
+        this.directory = directory;
+        SecretKey resolved = null;
+        String problem = null;
+        if (enabled) {
+            try {
+                resolved = resolveKey(configuredKey, keyFile);
+            } catch (IllegalArgumentException e) {
+                problem = "Session cache disabled: " + e.getMessage();
+            }
+        }
+        this.enabled = resolved != null;
+        this.key = resolved;
+        this.error = problem;
+    }
+
+    /**
+     * Reads the configured key, from the property or the key file.
+     *
+     * @throws IllegalArgumentException if no key is configured, or it is unusable
+     */
+    private SecretKey resolveKey(String configuredKey, String keyFile) {
+        String encoded;
+        if (!configuredKey.isBlank()) {
+            encoded = configuredKey;
+        } else if (!keyFile.isBlank()) {
+            Path file = Path.of(keyFile.trim()).toAbsolutePath().normalize();
+            if (file.startsWith(directory.toAbsolutePath().normalize())) {
+                throw new IllegalArgumentException("the key file must not be in the session directory " + directory);
+            }
+            try {
+                if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                        && !OWNER_ONLY.containsAll(Files.getPosixFilePermissions(file))) {
+                    throw new IllegalArgumentException("the key file " + file + " must be readable by its owner only");
+                }
+                encoded = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("cannot read the key file " + file, e);
+            }
+        } else {
+            throw new IllegalArgumentException("set ones.auth.token-cache.key or ones.auth.token-cache.key-file");
+        }
+        byte[] bytes = Base64.getDecoder().decode(encoded.trim());
+        if (bytes.length != 32) {
+            throw new IllegalArgumentException("the key must be 256 bits, Base64 encoded");
+        }
+        return new SecretKeySpec(bytes, "AES");
+    }
+
+    /**
+     * Reads the stored credentials of a session.
+     *
+     * @param sessionKey identifies the account, e.g. host and email
+     * @return the stored credentials, or null if there are none usable
+     */
+    public AuthSessionManager.Credentials load(String sessionKey) {
+        if (!enabled) {
+            return null;
+        }
+        Path file = sessionFile(sessionKey);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] stored = Files.readAllBytes(file);
+            if (stored.length <= IV_LENGTH) {
+                throw new GeneralSecurityException("Truncated session file");
+            }
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, stored, 0, IV_LENGTH));
+            // The session key is authenticated too, so a file copied to another name does not decrypt
+            cipher.updateAAD(sessionKey.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer plain = ByteBuffer.wrap(cipher.doFinal(stored, IV_LENGTH, stored.length - IV_LENGTH));
+            Instant obtainedAt = Instant.ofEpochMilli(plain.getLong());
+            String[] fields = StandardCharsets.UTF_8.decode(plain).toString().split("\n", 2);
+            if (fields.length != 2) {
+                throw new GeneralSecurityException("Malformed session file");
+            }
+            restored.incrementAndGet();
+            return new AuthSessionManager.Credentials(fields[0], fields[1], obtainedAt);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            failures.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the credentials of a session, replacing earlier ones. Failures are
+     * only counted: the session is still usable in this process.
+     *
+     * @param sessionKey  identifies the account
+     * @param credentials the credentials to store
+     */
+    public void save(String sessionKey, AuthSessionManager.Credentials credentials) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            byte[] fields = (credentials.userUuid() + "\n" + credentials.token()).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer plain = ByteBuffer.allocate(Long.BYTES + fields.length)
+                    .putLong(credentials.obtainedAt().toEpochMilli())
+                    .put(fields);
+
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(sessionKey.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(plain.array());
+
+            byte[] stored = new byte[IV_LENGTH + encrypted.length];
+            System.arraycopy(iv, 0, stored, 0, IV_LENGTH);
+            System.arraycopy(encrypted, 0, stored, IV_LENGTH, encrypted.length);
+            writeOwnerOnly(sessionFile(sessionKey), stored);
+            saved.incrementAndGet();
+        } catch (IOException | GeneralSecurityException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the stored credentials of a session, e.g. after ONES rejected them.
+     *
+     * @param sessionKey identifies the account
+     */
+    public void delete(String sessionKey) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(sessionFile(sessionKey));
+        } catch (IOException e) {
+            // A stale file is rejected by ONES and replaced on the next login
+        }
+    }
+
+    private Path sessionFile(String sessionKey) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sessionKey.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + SUFFIX);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeOwnerOnly(Path target, byte[] content) throws IOException {
+        createDirectory();
+        Path temp = Files.createTempFile(directory, "tmp", null);
+        try {
+            restrict(temp, OWNER_ONLY);
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        restrict(directory, OWNER_ONLY_DIRECTORY);
+    }
+
+    private static void restrict(Path path, Set<PosixFilePermission> permissions) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system: fall back to the owner-only flags it has
+            File file = path.toFile();
+            file.setReadable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(false, false);
+            file.setWritable(true, true);
+            if (Files.isDirectory(path)) {
+                file.setExecutable(false, false);
+                file.setExecutable(true, true);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return why the session cache is off although it was enabled, or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return number of sessions read back from disk
+     */
+    public long getRestored() {
+        return restored.get();
+    }
+
+    public long getSaved() {
+        return saved.get();
+    }
+
+    /**
+     * @return number of session files that could not be read or written
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms up the ONES connection and the rendering code in the background once the
+ * application is ready, so the first tool call does not pay for DNS, the TLS
+ * handshake, login and cold parsing code one after another. MCP initialization is
+ * not delayed: all work runs on a low-priority daemon thread and failures are only
+ * recorded for the diagnostics tool.
+ */
+@Component
+public class StartupPrewarmer {
+
+    private static final String SAMPLE_BLOCKS = "{\"blocks\":["
+            + "{\"type\":\"text\",\"heading\":2,\"text\":[{\"insert\":\"Warm-up\"}]},"
+            + "{\"type\":\"list\",\"ordered\":true,\"text\":[{\"insert\":\"item\"}]},"
+            + "{\"type\":\"table\",\"cols\":2,\"children\":[\"c1\",\"c2\"]},"
+            + "{\"type\":\"code\",\"language\":\"java\",\"children\":[\"k1\"]},"
+            + "{\"type\":\"embed\",\"embedType\":\"image\",\"embedData\":{\"src\":\"a.png\"}}],"
+            + "\"c1\":[{\"text\":[{\"insert\":\"key\"}]}],"
+            + "\"c2\":[{\"text\":[{\"insert\":\"value\",\"attributes\":{\"bold\":true}}]}],"
+            + "\"k1\":{\"text\":[{\"insert\":\"int x = 1;\"}]}}";
+
+    private static final String SAMPLE_HTML = "<h1>Warm-up</h1>"
+            + "<p>Paragraph with <a href=\"https://example.com\">link</a></p>"
+            + "<ul><li>item</li></ul><table><tr><td>key</td><td>value</td></tr></table><img alt=\"img\" src=\"a.png\">";
+
+    /**
+     * Outcome of one warm-up stage.
+     *
+     * @param stage  stage name
+     * @param millis time taken
+     * @param error  failure message, null if the stage succeeded
+     */
+    public record StageResult(String stage, long millis, String error) {
+    }
+
+    private final OnesWikiService onesWikiService;
+    private final boolean enabled;
+    private final int connections;
+    private final int renderIterations;
+    private final List<StageResult> results = Collections.synchronizedList(new ArrayList<>());
+
+    public StartupPrewarmer(OnesWikiService onesWikiService,
+            @Value("${ones.prewarm.enabled:true}") boolean enabled,
+            @Value("${ones.prewarm.connections:2}") int connections,
+            @Value("${ones.prewarm.render-iterations:200}") int renderIterations) {
+        this.onesWikiService = onesWikiService;
+        this.enabled = enabled;
+        this.connections = connections;
+        this.renderIterations = renderIterations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::prewarm, "ones-prewarm");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    void prewarm() {
+        stage("dns", () -> InetAddress.getAllByName(onesWikiService.getHost()));
+        stage("connections", () -> {
+            // Concurrent requests make the pool open several connections
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, connections); i++) {
+                requests.add(CompletableFuture.runAsync(onesWikiService::openConnection));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        });
+        stage("login", () -> {
+            if (!onesWikiService.ensureLoggedIn()) {
+                throw new IllegalStateException("Login failed");
+            }
+        });
+        stage("render", () -> {
+            byte[] envelope = ("{\"content\":\"" + SAMPLE_BLOCKS.replace("\"", "\\\"") + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < renderIterations; i++) {
+                onesWikiService.processHtmlContent(SAMPLE_BLOCKS);
+                onesWikiService.processHtmlContent(SAMPLE_HTML);
+                onesWikiService.decodeContent(new ByteArrayInputStream(envelope));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+
+        void run() throws Exception;
+    }
+
+    private void stage(String name, Stage stage) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            stage.run();
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        results.add(new StageResult(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return completed warm-up stages in order
+     */
+    public List<StageResult> getResults() {
+        synchronized (results) {
+            return List.copyOf(results);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts response bytes as received on the wire and after decompression, and
+ * tracks content request latency, so transfer settings such as
+ * {@code ones.http.compression-enabled} can be compared.
+ */
+public class TransferStats {
+
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final LatencyTracker contentLatency = new LatencyTracker(1024, 1);
+
+    /**
+     * Wraps a response body stream as received from the network.
+     */
+    public InputStream countWire(InputStream body) {
+        return new CountingInputStream(body, wireBytes);
+    }
+
+    /**
+     * Wraps a response body stream as handed to the JSON parser.
+     */
+    public InputStream countDecoded(InputStream body) {
+        return new CountingInputStream(body, decodedBytes);
+    }
+
+    public void recordCompressedResponse() {
+        compressedResponses.incrementAndGet();
+    }
+
+    public void recordContentLatency(long latencyNanos) {
+        contentLatency.record(latencyNanos);
+    }
+
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.get();
+    }
+
+    /**
+     * @return content request latency percentile in milliseconds, or -1 before the first request
+     */
+    public long getContentLatencyMillis(double percentile) {
+        long latency = contentLatency.percentile(percentile);
+        return latency < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(latency);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            counter.addAndGet(skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Classifies failures of calls to the ONES platform.
+ */
+final class UpstreamErrors {
+
+    private UpstreamErrors() {
+    }
+
+    /**
+     * Whether the failure indicates an overloaded or unavailable upstream: a
+     * {@code 429}, a {@code 5xx} or an I/O error. Other client errors such as
+     * {@code 404} say nothing about the health of the host.
+     *
+     * @param e the failure
+     * @return true for throttling, server and network failures
+     */
+    static boolean isOverloadOrUnavailable(Throwable e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    /**
+     * Whether the failure says a content endpoint does not work for a team: an
+     * I/O error, a {@code 5xx}, or a {@code 404} from outside the ONES API. The
+     * API reports a page that does not exist as a JSON error, which is an outcome
+     * of the page, while a route the installation lacks is answered with the HTML
+     * or text error page of the gateway.
+     *
+     * @param e the failure
+     * @return true if the failure counts against the endpoint
+     */
+    static boolean isEndpointFailure(Throwable e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status >= 500 || status == 404 && isMissingRoute(statusException.getResponseBodyAsString());
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    private static boolean isMissingRoute(String body) {
+        String trimmed = body.strip();
+        return !trimmed.isEmpty() && !trimmed.startsWith("{");
+    }
+
+    /**
+     * Whether the failure is ONES rejecting the session: a {@code 401} or
+     * {@code 403}.
+     *
+     * @param e the failure
+     * @return true if logging in again may help
+     */
+    static boolean isAuthFailure(Throwable e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status == 401 || status == 403;
+        }
+        return false;
+    }
+}
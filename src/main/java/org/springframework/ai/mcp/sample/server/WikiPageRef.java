@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 - 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies a wiki page parsed from a ONES wiki URL.
+ *
+ * @param host      ONES host name
+ * @param teamUuid  team UUID
+ * @param spaceUuid space UUID
+ * @param pageUuid  page UUID
+ */
+public record WikiPageRef(String host, String teamUuid, String spaceUuid, String pageUuid) {
+
+    // https://example.com/wiki/#/team/AQzvsooq/space/EYvdiwVh/page/4RwySM6h
+    private static final Pattern WIKI_URL_PATTERN = Pattern
+            .compile("https://([^/]+)/wiki/#/team/([^/]+)/space/([^/]+)/page/([^/]+)");
+
+    /**
+     * Parses a wiki page URL.
+     *
+     * @param wikiUrl the wiki page URL
+     * @return the page reference
+     * @throws IllegalArgumentException if URL format is invalid
+     */
+    public static WikiPageRef parse(String wikiUrl) {
+        Matcher matcher = WIKI_URL_PATTERN.matcher(wikiUrl);
+        if (matcher.find()) {
+            return new WikiPageRef(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4));
+        }
+        throw new IllegalArgumentException("Invalid wiki URL format");
+    }
+
+    /**
+     * @return key identifying the team on its host
+     */
+    public String teamKey() {
+        return host + "/" + teamUuid;
+    }
+
+    /**
+     * @return key identifying the page on its host, independent of the space in the URL
+     */
+    public String pageKey() {
+        return host + "/" + teamUuid + "/" + pageUuid;
+    }
+
+    /**
+     * @return API endpoint URL of the given content endpoint for this page
+     */
+    public String apiUrl(ContentEndpoint endpoint) {
+        return switch (endpoint) {
+            case ONLINE_PAGE_CONTENT -> String.format("https://%s/wiki/api/wiki/team/%s/online_page/%s/content",
+                    host, teamUuid, pageUuid);
+            case PAGE -> String.format("https://%s/wiki/api/wiki/team/%s/page/%s", host, teamUuid, pageUuid);
+        };
+    }
+
+    /**
+     * The two ONES endpoints that serve wiki page content.
+     */
+    public enum ContentEndpoint {
+
+        /** {@code /online_page/{uuid}/content}, the default endpoint. */
+        ONLINE_PAGE_CONTENT,
+
+        /** {@code /page/{uuid}}, the alternative endpoint. */
+        PAGE;
+
+        public ContentEndpoint other() {
+            return this == ONLINE_PAGE_CONTENT ? PAGE : ONLINE_PAGE_CONTENT;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue, Duration maxWait) {
+        return new AdaptiveConcurrencyLimiter(true, initialLimit, 1, 20, maxQueue, maxWait, Duration.ofSeconds(10),
+                0.5);
+    }
+
+    @Test
+    @DisplayName("Should grow the limit on fast successes and cut it on server errors")
+    void testAimd() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 10, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 8; i++) {
+            limiter.execute(() -> "ok");
+        }
+        double grown = limiter.getLimit();
+        assertTrue(grown > 4, "Limit should increase after successes");
+
+        assertThrows(HttpServerErrorException.class, () -> limiter.execute(() -> {
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        }));
+        assertEquals(grown * 0.5, limiter.getLimit(), 0.0001, "Limit should back off on 5xx");
+    }
+
+    @Test
+    @DisplayName("Should reject callers once the wait queue is full")
+    void testQueueBound() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 0, Duration.ofSeconds(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> limiter.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "held";
+        }));
+        holder.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(AdaptiveConcurrencyLimiter.LimitExceededException.class, () -> limiter.execute(() -> "ok"));
+        assertEquals(1, limiter.getRejected());
+
+        release.countDown();
+        holder.join(5_000);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should reject a queued caller after its wait deadline")
+    void testWaitDeadline() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 10, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> limiter.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "held";
+        }));
+        holder.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(AdaptiveConcurrencyLimiter.LimitExceededException.class, () -> limiter.execute(() -> "ok"));
+        assertEquals(0, limiter.getQueueDepth());
+
+        release.countDown();
+        holder.join(5_000);
+    }
+
+    @Test
+    @DisplayName("Should wait for a permit no longer than the tool call deadline")
+    void testWaitCappedByToolCallDeadline() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 10, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> limiter.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "held";
+        }));
+        holder.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+        long start = System.nanoTime();
+        assertThrows(Deadline.DeadlineExceededException.class,
+                () -> deadline.call(() -> limiter.execute(() -> "ok")));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Should not wait for max-wait");
+        assertEquals(0, limiter.getRejected(), "Running out of tool call time is not a limiter rejection");
+
+        release.countDown();
+        holder.join(5_000);
+    }
+
+    @Test
+    @DisplayName("Should leave the limit alone for calls a circuit breaker rejected")
+    void testBreakerRejectionIgnored() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 10, Duration.ofSeconds(1));
+
+        assertThrows(CircuitBreakerRegistry.CircuitOpenException.class, () -> limiter.execute(() -> {
+            throw new CircuitBreakerRegistry.CircuitOpenException("h PAGE");
+        }));
+        assertEquals(4, limiter.getLimit(), 0.0001);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should keep a separate limit per host")
+    void testLimitPerHost() {
+        ConcurrencyLimiters limiters = new ConcurrencyLimiters(true, 4, 1, 20, 10, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), 0.5);
+
+        assertThrows(HttpServerErrorException.class, () -> limiters.get("slow.example.com").execute(() -> {
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+
+        assertEquals(2, limiters.get("slow.example.com").getLimit(), 0.0001);
+        assertEquals(4, limiters.get("fast.example.com").getLimit(), 0.0001, "Other hosts keep their limit");
+        assertSame(limiters.get("slow.example.com"), limiters.get("SLOW.example.com"));
+        assertEquals(2, limiters.snapshot().size());
+    }
+}
@@ -0,0 +1,192 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuthSessionManager.
+ */
+class AuthSessionManagerTest {
+
+    private static final SessionTokenStore NO_STORE = new SessionTokenStore(false, null, "", "");
+
+    @Test
+    @DisplayName("Should log in once for concurrent callers and reuse the session")
+    void testConcurrentCallersShareOneLogin() throws Exception {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ZERO, NO_STORE);
+        AtomicInteger logins = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AuthSessionManager.LoginFunction login = () -> {
+            logins.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new AuthSessionManager.Credentials("user", "token", Instant.now());
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<AuthSessionManager.Credentials>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> sessions.getCredentials("h|e", login)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            AuthSessionManager.Credentials first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<AuthSessionManager.Credentials> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+            sessions.destroy();
+        }
+
+        assertEquals(1, logins.get());
+        assertEquals(1, sessions.getSuccessfulLogins());
+        assertSame(sessions.getCredentials("h|e", login), sessions.getCredentials("h|e", login));
+        assertEquals(1, logins.get(), "A valid session must not trigger another login");
+    }
+
+    @Test
+    @DisplayName("Should log in again once the session has expired")
+    void testExpiredSessionLogsInAgain() {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ZERO, NO_STORE);
+        AtomicInteger logins = new AtomicInteger();
+        AuthSessionManager.LoginFunction login = () -> new AuthSessionManager.Credentials("user",
+                "token-" + logins.incrementAndGet(), Instant.now().minus(Duration.ofHours(2)));
+        try {
+            assertEquals("token-1", sessions.getCredentials("h|e", login).token());
+            assertEquals("token-2", sessions.getCredentials("h|e", login).token());
+        } finally {
+            sessions.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should refresh the session in the background before it expires")
+    void testProactiveRefresh() throws Exception {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofMillis(400), Duration.ofMillis(300),
+                Duration.ZERO, NO_STORE);
+        AtomicInteger logins = new AtomicInteger();
+        AuthSessionManager.LoginFunction login = () -> new AuthSessionManager.Credentials("user",
+                "token-" + logins.incrementAndGet(), Instant.now());
+        try {
+            assertEquals("token-1", sessions.getCredentials("h|e", login).token());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (logins.get() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(sessions.getProactiveRefreshes() >= 1);
+            assertTrue(sessions.getSuccessfulLogins() >= 2, "Refresh should happen without a caller");
+        } finally {
+            sessions.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should replace rejected credentials once for all callers that saw the rejection")
+    void testRefreshAfterRejection() {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ZERO, NO_STORE);
+        AtomicInteger logins = new AtomicInteger();
+        AuthSessionManager.LoginFunction login = () -> new AuthSessionManager.Credentials("user",
+                "token-" + logins.incrementAndGet(), Instant.now());
+        try {
+            AuthSessionManager.Credentials rejected = sessions.getCredentials("h|e", login);
+            AuthSessionManager.Credentials renewed = sessions.refresh("h|e", rejected, null, login);
+            assertEquals("token-2", renewed.token());
+            assertSame(renewed, sessions.refresh("h|e", rejected, null, login), "Already replaced, no new login");
+            assertSame(renewed, sessions.getCredentials("h|e", login));
+
+            assertEquals(2, logins.get());
+            assertEquals(2, sessions.getRejections());
+            assertEquals(1, sessions.getReauthentications());
+        } finally {
+            sessions.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not renew credentials rejected right after login")
+    void testNoRefreshOfFreshCredentials() {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ofMinutes(1), NO_STORE);
+        AtomicInteger logins = new AtomicInteger();
+        AuthSessionManager.LoginFunction login = () -> new AuthSessionManager.Credentials("user",
+                "token-" + logins.incrementAndGet(), Instant.now());
+        try {
+            AuthSessionManager.Credentials current = sessions.getCredentials("h|e", login);
+            assertNull(sessions.refresh("h|e", current, null, login));
+            assertSame(current, sessions.getCredentials("h|e", login));
+            assertEquals(1, logins.get());
+        } finally {
+            sessions.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not log in again for a page still forbidden after a fresh login")
+    void testNoRefreshForForbiddenPage() throws Exception {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ofMillis(50), NO_STORE);
+        AtomicInteger logins = new AtomicInteger();
+        AuthSessionManager.LoginFunction login = () -> new AuthSessionManager.Credentials("user",
+                "token-" + logins.incrementAndGet(), Instant.now());
+        try {
+            AuthSessionManager.Credentials first = sessions.getCredentials("h|e", login);
+            Thread.sleep(100);
+            AuthSessionManager.Credentials renewed = sessions.refresh("h|e", first, "h/t/p", login);
+            assertEquals("token-2", renewed.token());
+            // The replay with the new session was forbidden too
+            sessions.recordForbidden("h|e", "h/t/p");
+
+            // Spaced further apart than reauth-min-age, which alone would allow a new login
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(100);
+                assertNull(sessions.refresh("h|e", renewed, "h/t/p", login));
+            }
+            assertEquals(2, logins.get());
+            assertEquals(3, sessions.getForbiddenSkips());
+            assertSame(renewed, sessions.getCredentials("h|e", login), "The session should be kept");
+
+            AuthSessionManager.Credentials other = sessions.refresh("h|e", renewed, "h/t/other", login);
+            assertEquals("token-3", other.token(), "A rejection for another page may still be about the session");
+            Thread.sleep(100);
+            assertEquals("token-4", sessions.refresh("h|e", other, null, login).token(),
+                    "A 401 is always about the session");
+        } finally {
+            sessions.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not keep a rejected login")
+    void testRejectedLogin() {
+        AuthSessionManager sessions = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ZERO, NO_STORE);
+        try {
+            assertNull(sessions.getCredentials("h|e", () -> null));
+            assertEquals(1, sessions.getFailedLogins());
+            assertEquals(0, sessions.getActiveSessions());
+        } finally {
+            sessions.destroy();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CacheWarmer and AccessHistory.
+ */
+class CacheWarmerTest {
+
+    private static final String PAGE_1 = "https://ones.example.com/wiki/#/team/T1/space/S1/page/P1";
+    private static final String PAGE_2 = "https://ones.example.com/wiki/#/team/T1/space/S1/page/P2";
+    private static final String PAGE_3 = "https://ones.example.com/wiki/#/team/T1/space/S1/page/P3";
+
+    @TempDir
+    Path directory;
+
+    private AccessHistory history() {
+        return new AccessHistory(true, directory.resolve("history.tsv"), 2);
+    }
+
+    private CacheWarmer warmer(AccessHistory history, String manifest, int maxPages, int parallelism) {
+        return new CacheWarmer(new OnesWikiService(), history, true, manifest, maxPages, parallelism);
+    }
+
+    @Test
+    @DisplayName("Should add the counts of each process to the history file, keeping the most used pages")
+    void testHistoryAcrossProcesses() throws Exception {
+        AccessHistory first = history();
+        for (int i = 0; i < 3; i++) {
+            first.record(WikiPageRef.parse(PAGE_1), PAGE_1);
+        }
+        first.record(WikiPageRef.parse(PAGE_2), PAGE_2);
+        first.destroy();
+
+        AccessHistory second = history();
+        for (int i = 0; i < 4; i++) {
+            second.record(WikiPageRef.parse(PAGE_2), PAGE_2);
+        }
+        second.record(WikiPageRef.parse(PAGE_3), PAGE_3);
+        assertEquals(List.of(new AccessHistory.PageAccess(PAGE_2, 5), new AccessHistory.PageAccess(PAGE_1, 3),
+                new AccessHistory.PageAccess(PAGE_3, 1)), second.top(10));
+        second.destroy();
+
+        assertEquals(List.of(PAGE_2, PAGE_1),
+                history().top(10).stream().map(AccessHistory.PageAccess::url).toList(),
+                "Only max-entries pages are kept");
+    }
+
+    @Test
+    @DisplayName("Should warm manifest pages first, then history pages, each page once")
+    void testPagesToWarm() throws Exception {
+        AccessHistory history = history();
+        history.record(WikiPageRef.parse(PAGE_3), PAGE_3);
+        history.record(WikiPageRef.parse(PAGE_3), PAGE_3);
+        history.record(WikiPageRef.parse(PAGE_1), PAGE_1);
+        Path manifest = Files.writeString(directory.resolve("pages.txt"),
+                "# Pages for warm-up\n\n" + PAGE_2 + "\nnot a wiki URL\n  " + PAGE_1 + "  \n");
+
+        assertEquals(List.of(PAGE_2, "not a wiki URL", PAGE_1), CacheWarmer.readManifest(manifest));
+        assertEquals(List.of(PAGE_2, PAGE_1, PAGE_3), warmer(history, manifest.toString(), 10, 2).pagesToWarm());
+        assertEquals(List.of(PAGE_2, PAGE_1), warmer(history, manifest.toString(), 2, 2).pagesToWarm());
+        assertEquals(List.of(PAGE_3, PAGE_1), warmer(history, "", 10, 2).pagesToWarm());
+    }
+
+    @Test
+    @DisplayName("Should warm pages with bounded parallelism and report progress")
+    void testWarm() {
+        CacheWarmer warmer = warmer(history(), "", 10, 2);
+        assertNull(warmer.getProgress());
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<Integer> priorities = ConcurrentHashMap.newKeySet();
+        warmer.warm(List.of(PAGE_1, PAGE_2, PAGE_3, "failing"), url -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            priorities.add(Thread.currentThread().getPriority());
+            try {
+                Thread.sleep(20);
+                if (url.equals("failing")) {
+                    throw new IllegalStateException("ONES unavailable");
+                }
+                return !url.equals(PAGE_3);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        CacheWarmer.Progress progress = warmer.getProgress();
+        assertTrue(progress.finished());
+        assertEquals(4, progress.total());
+        assertEquals(4, progress.completed());
+        assertEquals(2, progress.cached());
+        assertEquals(2, progress.failed());
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(Set.of(Thread.MIN_PRIORITY), priorities);
+    }
+}
@@ -0,0 +1,98 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CircuitBreakerRegistry.
+ */
+class CircuitBreakerRegistryTest {
+
+    private static String unavailable() {
+        throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    @DisplayName("Should open after consecutive failures and fail fast without calling upstream")
+    void testOpensAndFailsFast() {
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 2, Duration.ofMinutes(1));
+
+        assertThrows(HttpServerErrorException.class,
+                () -> breakers.execute("h", "PAGE", CircuitBreakerRegistryTest::unavailable));
+        assertThrows(HttpServerErrorException.class,
+                () -> breakers.execute("h", "PAGE", CircuitBreakerRegistryTest::unavailable));
+
+        assertThrows(CircuitBreakerRegistry.CircuitOpenException.class,
+                () -> breakers.execute("h", "PAGE", () -> fail("Upstream must not be called while open")));
+        assertEquals("ok", breakers.execute("h", "LOGIN", () -> "ok"), "Other endpoints keep their own breaker");
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.snapshot().get("h PAGE").state());
+        assertEquals(1, breakers.snapshot().get("h PAGE").rejected());
+    }
+
+    @Test
+    @DisplayName("Should close again after a successful half-open probe")
+    void testHalfOpenProbe() throws Exception {
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 1, Duration.ofMillis(20));
+
+        assertThrows(HttpServerErrorException.class,
+                () -> breakers.execute("h", "PAGE", CircuitBreakerRegistryTest::unavailable));
+        Thread.sleep(50);
+
+        assertEquals("ok", breakers.execute("h", "PAGE", () -> "ok"));
+        assertEquals(CircuitBreakerRegistry.State.CLOSED, breakers.snapshot().get("h PAGE").state());
+    }
+
+    @Test
+    @DisplayName("Should not count client errors as endpoint failures")
+    void testClientErrorsIgnored() {
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 1, Duration.ofMinutes(1));
+
+        assertThrows(HttpClientErrorException.class, () -> breakers.execute("h", "PAGE", () -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertEquals(CircuitBreakerRegistry.State.CLOSED, breakers.snapshot().get("h PAGE").state());
+    }
+
+    @Test
+    @DisplayName("Should stay open when a half-open probe never reaches the endpoint")
+    void testProbeWithoutAnswer() throws Exception {
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 1, Duration.ofMillis(20));
+        assertThrows(HttpServerErrorException.class,
+                () -> breakers.execute("h", "PAGE", CircuitBreakerRegistryTest::unavailable));
+        Thread.sleep(50);
+
+        assertThrows(AdaptiveConcurrencyLimiter.LimitExceededException.class,
+                () -> breakers.execute("h", "PAGE", () -> {
+                    throw new AdaptiveConcurrencyLimiter.LimitExceededException("queue full");
+                }));
+        assertNotEquals(CircuitBreakerRegistry.State.CLOSED, breakers.snapshot().get("h PAGE").state(),
+                "A rejected probe says nothing about the endpoint");
+
+        assertThrows(HttpServerErrorException.class,
+                () -> breakers.execute("h", "PAGE", CircuitBreakerRegistryTest::unavailable));
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.snapshot().get("h PAGE").state(),
+                "The next probe is let through and its failure re-opens the breaker");
+    }
+
+    @Test
+    @DisplayName("Should close after a half-open probe answered by the endpoint, even with a client error")
+    void testProbeAnsweredWithClientError() throws Exception {
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(true, 1, Duration.ofMillis(20));
+        assertThrows(HttpServerErrorException.class,
+                () -> breakers.execute("h", "PAGE", CircuitBreakerRegistryTest::unavailable));
+        Thread.sleep(50);
+
+        assertThrows(HttpClientErrorException.class, () -> breakers.execute("h", "PAGE", () -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertEquals(CircuitBreakerRegistry.State.CLOSED, breakers.snapshot().get("h PAGE").state());
+    }
+}
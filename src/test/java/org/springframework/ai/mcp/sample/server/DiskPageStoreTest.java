@@ -0,0 +1,233 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DiskPageStore. Each store instance stands in for one server process.
+ */
+class DiskPageStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private DiskPageStore store(Duration ttl) {
+        return store(ttl, DataSize.ofMegabytes(1));
+    }
+
+    private DiskPageStore store(Duration ttl, DataSize maxBytes) {
+        DiskPageStore store = new DiskPageStore(true, directory, DataSize.ofKilobytes(64), maxBytes, ttl,
+                Duration.ZERO);
+        // Waits for the index built in the background
+        store.open();
+        return store;
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".dat")).sorted().toList();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve pages written by another process, which only reads")
+    void testSharedBetweenProcesses() {
+        DiskPageStore writer = store(Duration.ofHours(1));
+        DiskPageStore reader = store(Duration.ofHours(1));
+        try {
+            writer.put("h/t/p1", "first \u00e9");
+            // The reader built its index at startup, before the page was written
+            reader.refresh();
+            assertEquals("first \u00e9", reader.get("h/t/p1").value());
+            assertTrue(writer.isWriting());
+            assertFalse(reader.isWriting());
+
+            writer.put("h/t/p2", "second");
+            reader.refresh();
+            assertEquals("second", reader.get("h/t/p2").value());
+
+            reader.put("h/t/p3", "not stored");
+            assertNull(writer.get("h/t/p3"), "Only the writer appends");
+        } finally {
+            writer.destroy();
+            reader.destroy();
+        }
+
+        DiskPageStore next = store(Duration.ofHours(1));
+        try {
+            assertEquals("second", next.get("h/t/p2").value(), "A new process reads what was stored");
+            assertTrue(next.isWriting(), "The writer lock is free again");
+        } finally {
+            next.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a record that fails its checksum")
+    void testChecksum() throws Exception {
+        DiskPageStore writer = store(Duration.ofHours(1));
+        writer.put("h/t/p1", "intact");
+        writer.put("h/t/p2", "corrupted");
+        writer.destroy();
+
+        Path segment = segmentFiles().get(0);
+        int position = new String(Files.readAllBytes(segment), StandardCharsets.ISO_8859_1).indexOf("corrupted");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 'C' }), position);
+        }
+
+        DiskPageStore reader = store(Duration.ofHours(1));
+        try {
+            assertNull(reader.get("h/t/p2"));
+            assertEquals(1, reader.getChecksumFailures());
+            assertEquals("intact", reader.get("h/t/p1").value());
+        } finally {
+            reader.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should compact superseded records into a new segment that readers pick up")
+    void testCompaction() throws Exception {
+        DiskPageStore writer = store(Duration.ofHours(1));
+        DiskPageStore reader = store(Duration.ofHours(1));
+        try {
+            writer.put("h/t/kept", "kept");
+            for (int i = 0; i < 200; i++) {
+                writer.put("h/t/page", "version " + i + " " + "x".repeat(500));
+            }
+            long before = writer.getStoredBytes();
+            reader.refresh();
+
+            writer.compact();
+
+            assertEquals(1, writer.getCompactions());
+            assertTrue(writer.getStoredBytes() < before / 10, "Superseded versions should be gone");
+            assertEquals(1, segmentFiles().size());
+            assertTrue(writer.get("h/t/page").value().startsWith("version 199 "));
+            assertEquals("kept", writer.get("h/t/kept").value());
+
+            reader.refresh();
+            assertTrue(reader.get("h/t/page").value().startsWith("version 199 "));
+            assertEquals(1, reader.getSegments());
+        } finally {
+            writer.destroy();
+            reader.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should build the index in the background and miss instead of waiting for it")
+    void testIndexBuiltInBackground() throws Exception {
+        DiskPageStore writer = store(Duration.ofHours(1));
+        writer.put("h/t/p", "content");
+        writer.destroy();
+
+        DiskPageStore store = new DiskPageStore(true, directory, DataSize.ofKilobytes(64), DataSize.ofMegabytes(1),
+                Duration.ofHours(1), Duration.ZERO);
+        try {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!store.isIndexed() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(store.isIndexed(), "The index should be built without any request");
+            assertEquals("content", store.get("h/t/p").value());
+        } finally {
+            store.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject writes beyond max-bytes and compact to make room")
+    void testMaxBytes() throws Exception {
+        DiskPageStore store = store(Duration.ofHours(1), DataSize.ofKilobytes(8));
+        try {
+            for (int i = 0; i < 20; i++) {
+                store.put("h/t/p" + i, "x".repeat(1000));
+            }
+            assertTrue(store.getRejectedWrites() > 0);
+            assertTrue(store.getStoredBytes() <= DataSize.ofKilobytes(8).toBytes());
+
+            store.compact();
+            assertTrue(store.getStoredBytes() <= DataSize.ofKilobytes(6).toBytes(), "Compaction should free room");
+            store.put("h/t/new", "fits again");
+            assertEquals("fits again", store.get("h/t/new").value());
+        } finally {
+            store.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should mark a stored page as fetched again when touched")
+    void testTouch() throws Exception {
+        DiskPageStore store = store(Duration.ofMillis(300));
+        try {
+            store.put("h/t/p", "content");
+            Instant fetchedAt = store.get("h/t/p").fetchedAt();
+            Thread.sleep(200);
+            store.touch("h/t/p");
+            Thread.sleep(200);
+            DiskPageStore.StoredContent touched = store.get("h/t/p");
+            assertNotNull(touched, "A touched page should live for another TTL");
+            assertEquals("content", touched.value());
+            assertTrue(touched.fetchedAt().isAfter(fetchedAt));
+        } finally {
+            store.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should remove a page for every process and drop it when compacting")
+    void testRemove() throws Exception {
+        DiskPageStore writer = store(Duration.ofHours(1));
+        DiskPageStore reader = store(Duration.ofHours(1));
+        try {
+            writer.put("h/t/p", "outdated");
+            writer.put("h/t/other", "kept");
+            reader.refresh();
+            assertEquals("outdated", reader.get("h/t/p").value());
+
+            writer.remove("h/t/p");
+            writer.touch("h/t/p");
+            assertNull(writer.get("h/t/p"));
+            reader.refresh();
+            assertNull(reader.get("h/t/p"), "The removal should reach the other processes");
+
+            writer.compact();
+            assertEquals(1, writer.getEntries());
+            assertEquals("kept", writer.get("h/t/other").value());
+        } finally {
+            writer.destroy();
+            reader.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not serve pages older than the TTL")
+    void testExpiry() throws InterruptedException {
+        DiskPageStore store = store(Duration.ofMillis(50));
+        try {
+            store.put("h/t/p", "content");
+            assertNotNull(store.get("h/t/p"));
+            Thread.sleep(80);
+            assertNull(store.get("h/t/p"));
+        } finally {
+            store.destroy();
+        }
+    }
+}
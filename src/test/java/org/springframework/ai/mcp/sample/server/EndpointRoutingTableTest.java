@@ -0,0 +1,90 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.mcp.sample.server.WikiPageRef.ContentEndpoint;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EndpointRoutingTable.
+ */
+class EndpointRoutingTableTest {
+
+    private static final String TEAM = "test.example.com/TEAM123";
+
+    @Test
+    @DisplayName("Should route a team to the page endpoint after repeated content endpoint failures")
+    void testSwitchAfterFailures() {
+        EndpointRoutingTable table = new EndpointRoutingTable(true, 2, Duration.ofHours(1));
+        assertEquals(ContentEndpoint.ONLINE_PAGE_CONTENT, table.firstEndpoint(TEAM));
+
+        table.recordFailure(TEAM, ContentEndpoint.ONLINE_PAGE_CONTENT);
+        table.recordSuccess(TEAM, ContentEndpoint.PAGE);
+        assertEquals(ContentEndpoint.ONLINE_PAGE_CONTENT, table.firstEndpoint(TEAM), "One failure should not switch");
+
+        table.recordFailure(TEAM, ContentEndpoint.ONLINE_PAGE_CONTENT);
+        table.recordSuccess(TEAM, ContentEndpoint.PAGE);
+        assertEquals(ContentEndpoint.PAGE, table.firstEndpoint(TEAM));
+
+        EndpointRoutingTable.RouteStats stats = table.snapshot().get(TEAM);
+        assertEquals(ContentEndpoint.PAGE, stats.preferred());
+        assertEquals(2, stats.onlinePageFailures());
+        assertEquals(2, stats.pageSuccesses());
+    }
+
+    @Test
+    @DisplayName("Should re-probe the default endpoint and switch back when it answers")
+    void testReprobe() {
+        EndpointRoutingTable table = new EndpointRoutingTable(true, 1, Duration.ZERO);
+        table.recordFailure(TEAM, ContentEndpoint.ONLINE_PAGE_CONTENT);
+
+        assertEquals(ContentEndpoint.ONLINE_PAGE_CONTENT, table.firstEndpoint(TEAM), "Expired interval should probe");
+        table.recordSuccess(TEAM, ContentEndpoint.ONLINE_PAGE_CONTENT);
+
+        assertEquals(ContentEndpoint.ONLINE_PAGE_CONTENT, table.snapshot().get(TEAM).preferred());
+    }
+
+    @Test
+    @DisplayName("Should keep teams independent")
+    void testTeamsAreIndependent() {
+        EndpointRoutingTable table = new EndpointRoutingTable(true, 1, Duration.ofHours(1));
+        table.recordFailure(TEAM, ContentEndpoint.ONLINE_PAGE_CONTENT);
+
+        assertEquals(ContentEndpoint.PAGE, table.firstEndpoint(TEAM));
+        assertEquals(ContentEndpoint.ONLINE_PAGE_CONTENT, table.firstEndpoint("test.example.com/OTHER"));
+    }
+
+    @Test
+    @DisplayName("Should count missing routes and server failures against the endpoint, but not missing pages")
+    void testEndpointFailures() {
+        assertTrue(UpstreamErrors.isEndpointFailure(new ResourceAccessException("Connection reset")));
+        assertTrue(UpstreamErrors.isEndpointFailure(error(HttpStatus.BAD_GATEWAY, "")));
+        assertTrue(UpstreamErrors.isEndpointFailure(error(HttpStatus.NOT_FOUND,
+                "<html><head><title>404 Not Found</title></head></html>")));
+
+        assertFalse(UpstreamErrors.isEndpointFailure(error(HttpStatus.NOT_FOUND,
+                "{\"code\":404,\"errcode\":\"NotFound.Page\",\"type\":\"NotFound\"}")));
+        assertFalse(UpstreamErrors.isEndpointFailure(error(HttpStatus.NOT_FOUND, "")));
+        assertFalse(UpstreamErrors.isEndpointFailure(error(HttpStatus.FORBIDDEN, "")));
+        assertFalse(UpstreamErrors.isEndpointFailure(error(HttpStatus.TOO_MANY_REQUESTS, "")));
+    }
+
+    private static RuntimeException error(HttpStatus status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return status.is5xxServerError()
+                ? HttpServerErrorException.create(status, status.getReasonPhrase(), new HttpHeaders(), bytes,
+                        StandardCharsets.UTF_8)
+                : HttpClientErrorException.create(status, status.getReasonPhrase(), new HttpHeaders(), bytes,
+                        StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HedgedRequestExecutor.
+ */
+class HedgedRequestExecutorTest {
+
+    private HedgedRequestExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should only call the alternative after the primary failed when hedging is disabled")
+    void testSequentialFallback() throws Exception {
+        executor = new HedgedRequestExecutor(false, Duration.ofMillis(10), false);
+        AtomicBoolean alternativeCalled = new AtomicBoolean();
+
+        HedgedRequestExecutor.HedgedResult<String> result = executor.execute(() -> "primary", () -> {
+            alternativeCalled.set(true);
+            return "alternative";
+        });
+
+        assertEquals("primary", result.value());
+        assertFalse(result.alternative());
+        assertFalse(alternativeCalled.get(), "Alternative should not run when the primary succeeds");
+
+        result = executor.execute(() -> {
+            throw new IllegalStateException("primary down");
+        }, () -> "alternative");
+
+        assertEquals("alternative", result.value());
+        assertTrue(result.alternative());
+    }
+
+    @Test
+    @DisplayName("Should return the alternative answer when the primary is slower than the hedge delay")
+    void testHedgeWinsOverSlowPrimary() throws Exception {
+        executor = new HedgedRequestExecutor(true, Duration.ofMillis(20), false);
+
+        long start = System.nanoTime();
+        HedgedRequestExecutor.HedgedResult<String> result = executor.execute(() -> {
+            Thread.sleep(5_000);
+            return "primary";
+        }, () -> "alternative");
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals("alternative", result.value());
+        assertTrue(result.alternative());
+        assertTrue(elapsedMillis < 2_000, "Hedged call should not wait for the slow primary");
+        assertEquals(1, executor.getHedgesFired());
+        assertEquals(1, executor.getHedgesWon());
+    }
+
+    @Test
+    @DisplayName("Should report both failures when primary and alternative fail")
+    void testBothFail() {
+        executor = new HedgedRequestExecutor(true, Duration.ofMillis(5), false);
+
+        HedgedRequestExecutor.BothFailedException e = assertThrows(HedgedRequestExecutor.BothFailedException.class,
+                () -> executor.execute(() -> {
+                    Thread.sleep(50);
+                    throw new IllegalStateException("primary down");
+                }, () -> {
+                    throw new IllegalStateException("alternative down");
+                }));
+
+        assertEquals("primary down", e.getPrimaryFailure().getMessage());
+        assertEquals("alternative down", e.getAlternativeFailure().getMessage());
+    }
+
+    @Test
+    @DisplayName("Should give the losing request's pooled connection back as soon as the hedge wins")
+    void testLoserReleasesConnection() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                if (exchange.getRequestURI().getPath().equals("/slow")) {
+                    release.await(30, TimeUnit.SECONDS);
+                }
+                byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException | IOException e) {
+                // The client has gone
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        try {
+            // A pool of one connection, a 1 s wait for it and timeouts far beyond the test
+            OnesHttpClientConfig.HttpTransportSettings settings = new OnesHttpClientConfig.HttpTransportSettings(
+                    false, 1, 1, Duration.ofSeconds(30), Duration.ofSeconds(60), false, Duration.ofSeconds(1),
+                    Duration.ofSeconds(30), Duration.ofSeconds(30));
+            RestClient client = RestClient.builder()
+                    .requestFactory(OnesHttpClientConfig.createRequestFactory(settings, new TransferStats()))
+                    .build();
+            String base = "http://localhost:" + server.getAddress().getPort();
+            executor = new HedgedRequestExecutor(true, Duration.ofMillis(50), false);
+
+            HedgedRequestExecutor.HedgedResult<String> result = executor.execute(
+                    () -> client.get().uri(base + "/slow").retrieve().body(String.class), () -> "alternative");
+            assertTrue(result.alternative());
+
+            assertEquals("ok", client.get().uri(base + "/fast").retrieve().body(String.class),
+                    "The only pooled connection should be free again");
+        } finally {
+            release.countDown();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Manual latency benchmark for the ONES HTTP transports.
+ * Starts a local stub of the wiki content endpoint and compares p50/p99 latency
+ * of the plain {@code HttpURLConnection} transport against the pooled transports
+ * from {@link OnesHttpClientConfig}, with and without response compression
+ * (bytes on the wire are reported as well). The stub charges a fixed cost for the first
+ * request on every new connection to stand in for the TCP/TLS handshake that a
+ * real ONES host would require. The stub speaks plain HTTP/1.1 only, so the JDK
+ * client case measures that client over HTTP/1.1, not HTTP/2 multiplexing.
+ */
+public class HttpTransportBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 200;
+    private static final long NEW_CONNECTION_COST_MS = 20;
+    private static final long SERVICE_TIME_MS = 2;
+
+    public static void main(String[] args) throws Exception {
+        HttpServer server = startStubServer();
+        String url = "http://localhost:" + server.getAddress().getPort()
+                + "/wiki/api/wiki/team/TEAM/online_page/PAGE/content";
+
+        try {
+            OnesHttpClientConfig.HttpTransportSettings defaults = OnesHttpClientConfig.HttpTransportSettings.defaults();
+            SimpleClientHttpRequestFactory unpooled = new SimpleClientHttpRequestFactory();
+
+            System.out.println("=== ONES HTTP transport benchmark ===");
+            System.out.printf("%d threads x %d requests, %d ms new-connection cost%n",
+                    THREADS, REQUESTS_PER_THREAD, NEW_CONNECTION_COST_MS);
+
+            run("HttpURLConnection (no pool)", unpooled, url, true, null);
+            run("Pooled HTTP/1.1 (Apache HC5)", defaults, url);
+            run("Pooled HTTP/1.1, no compression", withCompression(defaults, false), url);
+            run("JDK HttpClient (HTTP/1.1 fallback)", new OnesHttpClientConfig.HttpTransportSettings(true,
+                    defaults.maxConnectionsPerHost(), defaults.maxConnectionsTotal(), defaults.idleEviction(),
+                    defaults.keepAlive(), defaults.compressionEnabled(), defaults.connectTimeout(),
+                    defaults.readTimeout(), defaults.callTimeout()), url);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static OnesHttpClientConfig.HttpTransportSettings withCompression(
+            OnesHttpClientConfig.HttpTransportSettings settings, boolean compressionEnabled) {
+        return new OnesHttpClientConfig.HttpTransportSettings(settings.http2Enabled(),
+                settings.maxConnectionsPerHost(), settings.maxConnectionsTotal(), settings.idleEviction(),
+                settings.keepAlive(), compressionEnabled, settings.connectTimeout(), settings.readTimeout(),
+                settings.callTimeout());
+    }
+
+    private static void run(String name, OnesHttpClientConfig.HttpTransportSettings settings, String url)
+            throws Exception {
+        TransferStats transferStats = new TransferStats();
+        run(name, OnesHttpClientConfig.createRequestFactory(settings, transferStats), url, false, transferStats);
+    }
+
+    private static void run(String name, ClientHttpRequestFactory requestFactory, String url, boolean closeConnection,
+            TransferStats transferStats) throws Exception {
+        RestClient restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        // Warm up class loading and the JIT before measuring
+        for (int i = 0; i < 50; i++) {
+            fetch(restClient, url, closeConnection);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    long start = System.nanoTime();
+                    fetch(restClient, url, closeConnection);
+                    latencies.add(System.nanoTime() - start);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-36s p50=%6.2f ms  p99=%6.2f ms", name,
+                percentile(sorted, 0.50) / 1_000_000.0, percentile(sorted, 0.99) / 1_000_000.0);
+        if (transferStats != null) {
+            System.out.printf("  wire=%,d bytes  decoded=%,d bytes", transferStats.getWireBytes(),
+                    transferStats.getDecodedBytes());
+        }
+        System.out.println();
+    }
+
+    private static void fetch(RestClient restClient, String url, boolean closeConnection) {
+        RestClient.RequestHeadersSpec<?> request = restClient.get().uri(url);
+        if (closeConnection) {
+            request = request.header("Connection", "close");
+        }
+        request.retrieve().body(OnesWikiService.WikiContentResponse.class);
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static HttpServer startStubServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        Set<InetSocketAddress> knownConnections = ConcurrentHashMap.newKeySet();
+        byte[] body = ("{\"content\":\"" + "<p>Benchmark page paragraph</p>".repeat(2_000) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] gzipBody = gzip(body);
+
+        server.createContext("/", (HttpExchange exchange) -> {
+            try {
+                if (knownConnections.add(exchange.getRemoteAddress())) {
+                    Thread.sleep(NEW_CONNECTION_COST_MS);
+                }
+                Thread.sleep(SERVICE_TIME_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            byte[] response = gzip ? gzipBody : body;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (gzip) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(THREADS * 2));
+        server.start();
+        return server;
+    }
+}
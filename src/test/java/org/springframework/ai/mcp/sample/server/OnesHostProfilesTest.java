@@ -0,0 +1,37 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OnesHostProfiles.
+ */
+class OnesHostProfilesTest {
+
+    @Test
+    @DisplayName("Should find profiles by URL host regardless of case")
+    void testLookup() {
+        OnesHostProfiles.HostProfile second = new OnesHostProfiles.HostProfile("Second.example.com", "a@b.c", "pw",
+                List.of());
+        OnesHostProfiles profiles = new OnesHostProfiles(Map.of("second", second));
+
+        assertSame(second, profiles.get("second.example.com"));
+        assertSame(second, profiles.get("SECOND.EXAMPLE.COM"));
+        assertNull(profiles.get("unknown.example.com"));
+        assertEquals("Second.example.com|a@b.c", second.sessionKey());
+    }
+
+    @Test
+    @DisplayName("Should reject incomplete profiles")
+    void testIncompleteProfile() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new OnesHostProfiles(Map.of("broken",
+                        new OnesHostProfiles.HostProfile("broken.example.com", "a@b.c", null, null))));
+        assertTrue(e.getMessage().contains("ones.hosts.broken"));
+    }
+}
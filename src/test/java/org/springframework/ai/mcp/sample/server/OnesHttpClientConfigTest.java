@@ -0,0 +1,35 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OnesHttpClientConfig.
+ */
+class OnesHttpClientConfigTest {
+
+    private static TimeValue keepAlive(String keepAliveHeader) {
+        ConnectionKeepAliveStrategy strategy = OnesHttpClientConfig.keepAliveStrategy(Duration.ofSeconds(60));
+        BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+        if (keepAliveHeader != null) {
+            response.addHeader("Keep-Alive", keepAliveHeader);
+        }
+        return strategy.getKeepAliveDuration(response, HttpClientContext.create());
+    }
+
+    @Test
+    @DisplayName("Should keep connections alive as long as the server allows, up to the configured maximum")
+    void testKeepAliveStrategy() {
+        assertEquals(5_000, keepAlive("timeout=5, max=100").toMilliseconds());
+        assertEquals(60_000, keepAlive("timeout=600").toMilliseconds());
+        assertEquals(60_000, keepAlive(null).toMilliseconds());
+    }
+}
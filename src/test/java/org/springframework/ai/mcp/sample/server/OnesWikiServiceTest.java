@@ -97,4 +97,117 @@ class OnesWikiServiceTest {
             assertEquals("", result, "Should return empty string for null input");
         }, "Method should handle null input gracefully");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return batch results in input order with per-URL errors")
+    void testBatchKeepsOrderAndIsolatesErrors() {
+        String result = wikiService.getWikiContents(java.util.List.of("not-a-wiki-url-1", "not-a-wiki-url-2"));
+
+        int first = result.indexOf("[1/2] not-a-wiki-url-1");
+        int second = result.indexOf("[2/2] not-a-wiki-url-2");
+        assertTrue(first >= 0 && second > first, "Results should follow input order");
+        assertTrue(result.contains("URL format error"), "Each invalid URL should report its own error");
+    }
+
+    @Test
+    @DisplayName("Should report pages not reached before the batch deadline as timed out")
+    void testBatchSharesOneDeadline() {
+        ReflectionTestUtils.setField(wikiService, "toolCallTimeout", java.time.Duration.ofNanos(1));
+
+        String result = wikiService.getWikiContents(java.util.List.of(
+                "https://test.example.com/wiki/#/team/T/space/S/page/P1",
+                "https://test.example.com/wiki/#/team/T/space/S/page/P2"));
+
+        assertEquals(2, result.split("Timed out after 0 ms retrieving Wiki content", -1).length - 1, result);
+        assertEquals(0, wikiService.getContentRequests().getExecutions(), "No page should have been fetched");
+    }
+
+    @Test
+    @DisplayName("Should refuse hosts without configured credentials")
+    void testUnknownHostIsRefused() {
+        String result = wikiService.getWikiContent("https://other.example.com/wiki/#/team/T/space/S/page/P");
+
+        assertEquals("No ONES credentials configured for host other.example.com", result);
+        assertNotNull(wikiService.resolveHost("TEST.example.com"), "ones.host should match regardless of case");
+    }
+
+    @Test
+    @DisplayName("Should render a streamed content response like the same content as a string")
+    void testStreamingDecodeMatchesStringRendering() throws Exception {
+        // The table cells come after the blocks array, as they are resolved by id
+        String blocks = "{\"blocks\":["
+                + "{\"type\":\"text\",\"heading\":1,\"text\":[{\"insert\":\"Title \\\"quoted\\\" \\u00e9\"}]},"
+                + "{\"type\":\"table\",\"cols\":2,\"children\":[\"c1\",\"c2\"]},"
+                + "{\"type\":\"list\",\"text\":[{\"insert\":\"item\"}]}],"
+                + "\"unused\":[{\"text\":[{\"insert\":\"dropped\"}]}],"
+                + "\"c1\":[{\"text\":[{\"insert\":\"key\"}]}],"
+                + "\"c2\":[{\"text\":[{\"insert\":\"value\"}]}]}";
+        String envelope = new com.fasterxml.jackson.databind.ObjectMapper()
+                .writeValueAsString(java.util.Map.of("content", blocks));
+
+        RenderedContentConverter.RenderedContent decoded = wikiService.decodeContent(
+                new java.io.ByteArrayInputStream(envelope.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+
+        assertEquals(wikiService.processHtmlContent(blocks), decoded.rendered());
+        assertTrue(decoded.rendered().contains("| key | value |"));
+        assertEquals(blocks, decoded.raw(), "The raw content should be kept for the raw cache tier");
+    }
+
+    @Test
+    @DisplayName("Should not keep the raw content of a page larger than the raw page size limit")
+    void testOversizedRawContentNotKept() throws Exception {
+        RawContentCache rawCache = new RawContentCache(true, org.springframework.util.unit.DataSize.ofMegabytes(1),
+                org.springframework.util.unit.DataSize.ofBytes(64), java.time.Duration.ofMinutes(5),
+                java.time.Duration.ofMinutes(30), java.time.Duration.ofHours(1), "none", 1);
+        ReflectionTestUtils.setField(wikiService, "rawCache", rawCache);
+        String blocks = "<p>" + "x".repeat(100) + "</p>";
+        String envelope = new com.fasterxml.jackson.databind.ObjectMapper()
+                .writeValueAsString(java.util.Map.of("content", blocks));
+
+        RenderedContentConverter.RenderedContent decoded = wikiService.decodeContent(
+                new java.io.ByteArrayInputStream(envelope.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+
+        assertEquals(wikiService.processHtmlContent(blocks), decoded.rendered());
+        assertNull(decoded.raw());
+        assertTrue(decoded.oversized(), "Earlier raw copies of the page should be dropped");
+        assertEquals(1, rawCache.getOversized());
+    }
+
+    @Test
+    @DisplayName("Should render a page from cached raw content without calling ONES")
+    void testRendersFromRawTier() {
+        PageCache rawCache = (PageCache) ReflectionTestUtils.getField(wikiService, "rawCache");
+        rawCache.put("test.example.com/T/P", "<p>Cached paragraph</p>");
+
+        String result = wikiService.getWikiContent("https://test.example.com/wiki/#/team/T/space/S/page/P");
+
+        assertTrue(result.contains("Cached paragraph"), result);
+        assertEquals(1, wikiService.getRawRenders());
+        assertEquals(result, wikiService.getWikiContent("https://test.example.com/wiki/#/team/T/space/S/page/P"));
+        assertEquals(1, wikiService.getRawRenders(), "The second call should hit the rendered tier");
+    }
+
+    @Test
+    @DisplayName("Should serve a stale page with its age and refresh it in the background")
+    void testServesStaleWhileRevalidating() {
+        PageCache rawCache = (PageCache) ReflectionTestUtils.getField(wikiService, "rawCache");
+        long tenMinutesAgo = System.nanoTime() - java.time.Duration.ofMinutes(10).toNanos();
+        rawCache.put("test.example.com/T/P", "<p>Older paragraph</p>", tenMinutesAgo);
+
+        String result = wikiService.getWikiContent("https://test.example.com/wiki/#/team/T/space/S/page/P");
+
+        assertTrue(result.startsWith("[Served from cache: fetched 10 min ago, refreshing in the background]"),
+                result);
+        assertTrue(result.contains("Older paragraph"));
+        assertEquals(1, wikiService.getStaleServed());
+        assertEquals(1, wikiService.getBackgroundRefreshes());
+    }
+
+    @Test
+    @DisplayName("Should format the age of a cached page")
+    void testFormatAge() {
+        assertEquals("42 s", OnesWikiService.formatAge(java.time.Duration.ofSeconds(42)));
+        assertEquals("12 min", OnesWikiService.formatAge(java.time.Duration.ofSeconds(12 * 60 + 5)));
+        assertEquals("2 h 5 min", OnesWikiService.formatAge(java.time.Duration.ofMinutes(125)));
+    }
+}
@@ -0,0 +1,118 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PageCache.
+ */
+class PageCacheTest {
+
+    private static final String PAGE = "x".repeat(10_000);
+
+    private static String read(PageCache cache, String key) {
+        String cached = cache.get(key);
+        if (cached == null) {
+            cache.put(key, PAGE);
+        }
+        return cached;
+    }
+
+    @Test
+    @DisplayName("Should return stored pages and count hits and misses")
+    void testHitAndMiss() {
+        PageCache cache = new PageCache(true, 1_000_000, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        assertNull(cache.get("h/t/p"));
+        cache.put("h/t/p", "content");
+
+        assertEquals("content", cache.get("h/t/p"));
+        PageCache.CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.entries());
+        assertEquals(PageCache.weigh("h/t/p", "content"), stats.weightedBytes());
+    }
+
+    @Test
+    @DisplayName("Should keep frequently read pages when many pages are read once")
+    void testAdmissionProtectsFrequentPages() {
+        PageCache cache = new PageCache(true, 200_000, Duration.ofMinutes(5), Duration.ofMinutes(5));
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 5; i++) {
+                read(cache, "hot" + i);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            read(cache, "once" + i);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(cache.get("hot" + i), "hot" + i + " should have survived the scan");
+        }
+        assertTrue(cache.stats().rejections() > 0);
+        assertTrue(cache.stats().weightedBytes() <= 200_000, "The byte bound should hold");
+    }
+
+    @Test
+    @DisplayName("Should stay within the byte bound and never store a page larger than the cache")
+    void testByteBound() {
+        PageCache cache = new PageCache(true, 100_000, Duration.ofMinutes(5), Duration.ofMinutes(5));
+        for (int i = 0; i < 50; i++) {
+            for (int round = 0; round <= i % 3; round++) {
+                read(cache, "page" + i);
+            }
+            assertTrue(cache.stats().weightedBytes() <= 100_000);
+        }
+
+        cache.put("huge", "y".repeat(100_000));
+        assertNull(cache.get("huge"));
+        assertTrue(cache.stats().weightedBytes() <= 100_000);
+    }
+
+    @Test
+    @DisplayName("Should expire pages after the TTL and after being idle")
+    void testExpiry() throws InterruptedException {
+        PageCache ttl = new PageCache(true, 1_000_000, Duration.ofMillis(50), Duration.ZERO);
+        PageCache idle = new PageCache(true, 1_000_000, Duration.ZERO, Duration.ofMillis(50));
+        ttl.put("p", "content");
+        idle.put("p", "content");
+        assertEquals("content", ttl.get("p"));
+
+        Thread.sleep(80);
+        assertNull(ttl.get("p"));
+        assertNull(idle.get("p"));
+        assertEquals(1, ttl.stats().expirations());
+        assertEquals(0, ttl.stats().entries());
+    }
+
+    @Test
+    @DisplayName("Should keep compressed pages, weighed by their compressed size")
+    void testCompressedStorage() {
+        String page = "| Key | Value |\n| --- | --- |\n".repeat(200) + "\u4e2d\u6587 \u00e9";
+        PageCache plain = new PageCache(true, 1_000_000, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        PageCache compressed = new PageCache(true, 1_000_000, Duration.ofMinutes(5), Duration.ofMinutes(1),
+                PageCompressor.forName("deflate", 1));
+        plain.put("p", page);
+        compressed.put("p", page);
+
+        assertEquals(page, compressed.get("p"));
+        PageCache.CacheStats stats = compressed.stats();
+        assertEquals(plain.stats().weightedBytes(), stats.textBytes());
+        assertTrue(stats.weightedBytes() * 3 < stats.textBytes(), "Tables should compress well: " + stats);
+        assertThrows(IllegalArgumentException.class, () -> PageCompressor.forName("zip", 1));
+        assertNull(PageCompressor.forName("none", 1));
+    }
+
+    @Test
+    @DisplayName("Should store nothing when disabled")
+    void testDisabled() {
+        PageCache cache = new PageCache(false, 1_000_000, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        cache.put("p", "content");
+        assertNull(cache.get("p"));
+        assertFalse(cache.isEnabled());
+    }
+}
@@ -0,0 +1,90 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RetryExecutor.
+ */
+class RetryExecutorTest {
+
+    private static RetryExecutor retryExecutor(int maxAttempts, double budgetCapacity) {
+        return new RetryExecutor(true, maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(1),
+                budgetCapacity, 0.1);
+    }
+
+    @Test
+    @DisplayName("Should retry transient server errors and count attempts")
+    void testRetriesTransientErrors() {
+        RetryExecutor retryExecutor = retryExecutor(3, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retryExecutor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(1, retryExecutor.getAttempts(1));
+        assertEquals(1, retryExecutor.getAttempts(3));
+        assertEquals(1, retryExecutor.getSuccesses(3));
+    }
+
+    @Test
+    @DisplayName("Should not retry client errors")
+    void testNoRetryOnClientErrors() {
+        RetryExecutor retryExecutor = retryExecutor(3, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should stop retrying once the retry budget is spent")
+    void testRetryBudget() {
+        RetryExecutor retryExecutor = retryExecutor(5, 2);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+        assertEquals(3, calls.get(), "First call plus two budgeted retries");
+        assertEquals(1, retryExecutor.getBudgetExhausted());
+    }
+
+    @Test
+    @DisplayName("Should give up when Retry-After asks for a longer pause than allowed")
+    void testRetryAfter() {
+        RetryExecutor retryExecutor = retryExecutor(3, 10);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "120");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers,
+                    new byte[0], null);
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(Duration.ofSeconds(3).toNanos(), RetryExecutor.parseRetryAfter("3"));
+        assertEquals(-1, RetryExecutor.parseRetryAfter("soon"));
+    }
+}
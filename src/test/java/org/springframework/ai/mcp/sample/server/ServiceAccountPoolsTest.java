@@ -0,0 +1,77 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.mcp.sample.server.OnesHostProfiles.Account;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ServiceAccountPools.
+ */
+class ServiceAccountPoolsTest {
+
+    private static final Account A = new Account("a@example.com", "pw");
+    private static final Account B = new Account("b@example.com", "pw");
+
+    @Test
+    @DisplayName("Should lease the account with the fewest requests in flight")
+    void testLeastLoaded() {
+        ServiceAccountPools pools = new ServiceAccountPools(Duration.ofMinutes(1), Duration.ofMinutes(5));
+        ServiceAccountPools.AccountPool pool = pools.create("h", List.of(A, B));
+
+        ServiceAccountPools.Lease first = pool.acquire();
+        ServiceAccountPools.Lease second = pool.acquire();
+        assertNotEquals(first.account(), second.account(), "The idle account should be chosen");
+
+        second.close();
+        ServiceAccountPools.Lease third = pool.acquire();
+        assertEquals(second.account(), third.account());
+        first.close();
+        third.close();
+
+        assertEquals(0, pools.snapshot().get("h a@example.com").inFlight());
+        assertEquals(3, pools.snapshot().values().stream().mapToLong(ServiceAccountPools.AccountStats::requests)
+                .sum());
+    }
+
+    @Test
+    @DisplayName("Should leave throttled accounts out until their ejection ends")
+    void testThrottledAccountIsEjected() {
+        ServiceAccountPools pools = new ServiceAccountPools(Duration.ofMinutes(1), Duration.ofMinutes(5));
+        ServiceAccountPools.AccountPool pool = pools.create("h", List.of(A, B));
+
+        ServiceAccountPools.Lease throttled = pool.acquire();
+        throttled.recordThrottled();
+        throttled.close();
+
+        for (int i = 0; i < 5; i++) {
+            try (ServiceAccountPools.Lease lease = pool.acquire()) {
+                assertNotEquals(throttled.account(), lease.account());
+            }
+        }
+        ServiceAccountPools.AccountStats stats = pools.snapshot().get("h " + throttled.account().email());
+        assertEquals(1, stats.throttled());
+        assertEquals(1, stats.ejections());
+        assertTrue(stats.ejectedForMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("Should still serve requests when every account is ejected")
+    void testAllEjected() {
+        ServiceAccountPools pools = new ServiceAccountPools(Duration.ofMinutes(1), Duration.ofMinutes(5));
+        ServiceAccountPools.AccountPool pool = pools.create("h", List.of(A));
+
+        try (ServiceAccountPools.Lease lease = pool.acquire()) {
+            lease.recordLoginFailure();
+        }
+        try (ServiceAccountPools.Lease lease = pool.acquire()) {
+            assertEquals(A, lease.account());
+        }
+        assertEquals(1, pools.snapshot().get("h a@example.com").loginFailures());
+    }
+}
@@ -0,0 +1,131 @@
+package org.springframework.ai.mcp.sample.server;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SessionTokenStore.
+ */
+class SessionTokenStoreTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10,
+            11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32 });
+
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path keyDirectory;
+
+    private static AuthSessionManager.Credentials credentials(String token) {
+        return new AuthSessionManager.Credentials("user", token, Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    @Test
+    @DisplayName("Should read back stored credentials without keeping the token in plain text")
+    void testRoundTrip() throws Exception {
+        SessionTokenStore store = new SessionTokenStore(true, directory, KEY, "");
+        AuthSessionManager.Credentials stored = credentials("secret-token");
+        store.save("h|e", stored);
+
+        assertEquals(stored, new SessionTokenStore(true, directory, KEY, "").load("h|e"),
+                "A new process reads it back");
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                assertFalse(new String(Files.readAllBytes(file)).contains("secret-token"));
+                if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                    assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+                            Files.getPosixFilePermissions(file));
+                }
+            }
+        }
+        assertNull(store.load("h|other"));
+    }
+
+    @Test
+    @DisplayName("Should store nothing without a key kept apart from the sessions")
+    void testRequiresSeparateKey() throws Exception {
+        SessionTokenStore noKey = new SessionTokenStore(true, directory, "", "");
+        noKey.save("h|e", credentials("token"));
+        assertFalse(noKey.isEnabled());
+        assertNotNull(noKey.getError());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count(), "No key should be generated next to the sessions");
+        }
+
+        Path keyInSessions = Files.writeString(directory.resolve("session.key"), KEY);
+        assertFalse(new SessionTokenStore(true, directory, "", keyInSessions.toString()).isEnabled());
+
+        Path keyFile = Files.writeString(keyDirectory.resolve("ones-session.key"), KEY);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(keyFile,
+                    EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+        }
+        SessionTokenStore withKeyFile = new SessionTokenStore(true, directory, "", keyFile.toString());
+        assertTrue(withKeyFile.isEnabled(), String.valueOf(withKeyFile.getError()));
+        withKeyFile.save("h|e", credentials("token"));
+        assertEquals("token", new SessionTokenStore(true, directory, KEY, "").load("h|e").token(),
+                "The key file and the key property hold the same key");
+    }
+
+    @Test
+    @DisplayName("Should ignore files that were tampered with or written with another key")
+    void testRejectsForeignFiles() throws Exception {
+        SessionTokenStore store = new SessionTokenStore(true, directory, KEY, "");
+        store.save("h|e", credentials("token"));
+
+        String otherKey = Base64.getEncoder().encodeToString(new byte[32]);
+        assertNull(new SessionTokenStore(true, directory, otherKey, "").load("h|e"));
+
+        List<Path> sessions;
+        try (Stream<Path> files = Files.list(directory)) {
+            sessions = files.filter(file -> file.toString().endsWith(".session")).toList();
+        }
+        byte[] content = Files.readAllBytes(sessions.get(0));
+        content[content.length - 1] ^= 1;
+        Files.write(sessions.get(0), content);
+        assertNull(store.load("h|e"));
+        assertEquals(1, store.getFailures());
+    }
+
+    @Test
+    @DisplayName("Should reuse a stored session in a new process and log in when it has expired")
+    void testSessionManagerReusesStoredSession() {
+        AtomicInteger logins = new AtomicInteger();
+        AuthSessionManager.LoginFunction login = () -> credentials("token-" + logins.incrementAndGet());
+
+        AuthSessionManager first = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ZERO, new SessionTokenStore(true, directory, KEY, ""));
+        AuthSessionManager second = new AuthSessionManager(Duration.ofHours(1), Duration.ofMinutes(5),
+                Duration.ZERO, new SessionTokenStore(true, directory, KEY, ""));
+        AuthSessionManager expired = new AuthSessionManager(Duration.ofMillis(1), Duration.ZERO,
+                Duration.ZERO, new SessionTokenStore(true, directory, KEY, ""));
+        try {
+            assertEquals("token-1", first.getCredentials("h|e", login).token());
+            assertEquals("token-1", second.getCredentials("h|e", login).token());
+            assertEquals(1, logins.get());
+
+            assertEquals("token-2", expired.getCredentials("h|e", login).token());
+        } finally {
+            first.destroy();
+            second.destroy();
+            expired.destroy();
+        }
+    }
+}